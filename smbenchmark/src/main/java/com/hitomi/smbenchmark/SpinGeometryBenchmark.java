@@ -0,0 +1,160 @@
+package com.hitomi.smbenchmark;
+
+import com.hitomi.smcore.SpinGeometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the per-frame and per-touch-sample work of SpinMenuLayout, on the {@link SpinGeometry} it delegates to <br/>
+ *
+ * Run with ./gradlew :smbenchmark:jmh, the GC profiler reports the allocations per op next to ns/op
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpinGeometryBenchmark {
+
+    /**
+     * Number of inputs cycled through, a power of two
+     */
+    private static final int SAMPLE_COUNT = 1024;
+
+    /**
+     * Whether the ring loops through its menu items
+     */
+    @Param({"false", "true"})
+    public boolean cyclic;
+
+    /**
+     * Number of menu items laid out per frame, as many child views as the ring binds for its item count
+     */
+    private int childCount;
+
+    private SpinGeometry geometry;
+
+    private final float[] touchX = new float[SAMPLE_COUNT];
+
+    private final float[] touchY = new float[SAMPLE_COUNT];
+
+    private final float[] ringAngles = new float[SAMPLE_COUNT];
+
+    private final int[] restAngles = new int[SAMPLE_COUNT];
+
+    private final int[] slotCenter = new int[2];
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        geometry = new SpinGeometry();
+        // 8 menu items fill the whole circle and make the ring cyclic
+        geometry.setItemCount(cyclic ? 8 : 5);
+        childCount = Math.min(geometry.getItemCount(), SpinGeometry.getMaxBoundItemCount());
+        geometry.setSize(1080, 1920, 690);
+
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            touchX[i] = random.nextFloat() * 1080;
+            touchY[i] = random.nextFloat() * 1920;
+            ringAngles[i] = (random.nextFloat() - .5f) * 720;
+            restAngles[i] = (random.nextInt(16) - 8) * SpinGeometry.ANGLE_SPACE;
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (SAMPLE_COUNT - 1);
+        return index;
+    }
+
+    /**
+     * Child placement of one onLayout pass, from the sine and cosine tables
+     */
+    @Benchmark
+    public void layoutChildren(Blackhole blackhole) {
+        geometry.setPlacementAngle(ringAngles[next()]);
+        for (int position = 0; position < childCount; position++) {
+            geometry.placeSlot(position, slotCenter);
+            blackhole.consume(slotCenter[0]);
+            blackhole.consume(slotCenter[1]);
+        }
+    }
+
+    /**
+     * Child placement of one onLayout pass, with two trigonometric calls per child, for comparison
+     */
+    @Benchmark
+    public void layoutChildrenDirect(Blackhole blackhole) {
+        float ringAngle = ringAngles[next()];
+        for (int position = 0; position < childCount; position++) {
+            geometry.computeSlotCenter(geometry.getSlotAngle(position, ringAngle), slotCenter);
+            blackhole.consume(slotCenter[0]);
+            blackhole.consume(slotCenter[1]);
+        }
+    }
+
+    /**
+     * Angle of one touch sample
+     */
+    @Benchmark
+    public float computeAngle() {
+        int i = next();
+        return geometry.computeAngle(touchX[i], touchY[i]);
+    }
+
+    /**
+     * Rotation between two consecutive touch samples, as done for every sample of a drag
+     */
+    @Benchmark
+    public float computeRotation() {
+        int i = next();
+        int j = (i + 1) & (SAMPLE_COUNT - 1);
+        return geometry.computeRotation(touchX[i], touchY[i], touchX[j], touchY[j]);
+    }
+
+    /**
+     * Snap target of the automatic scrolling at the end of a gesture
+     */
+    @Benchmark
+    public int snapTarget() {
+        int i = next();
+        int angle = (int) ringAngles[i];
+        int finalAngle = angle + geometry.computeDistanceToEndAngle(angle % SpinGeometry.ANGLE_SPACE, touchX[i] - 540);
+        return geometry.clampFinalAngle(finalAngle);
+    }
+
+    /**
+     * Selected position at the rest angle
+     */
+    @Benchmark
+    public int getSelectedPosition() {
+        return geometry.getSelectedPosition(restAngles[next()]);
+    }
+
+    /**
+     * Center position and bound range, updated on every rotation frame
+     */
+    @Benchmark
+    public void updateRingAngle(Blackhole blackhole) {
+        float ringAngle = ringAngles[next()];
+        blackhole.consume(geometry.computeCenterPosition(ringAngle));
+        blackhole.consume(geometry.computeFirstBoundPosition(ringAngle));
+        blackhole.consume(geometry.computeLastBoundPosition(ringAngle));
+    }
+}
@@ -0,0 +1,141 @@
+package com.hitomi.smcore;
+
+/**
+ * Fixed-memory histogram of non-negative values with log-scaled buckets <br/>
+ *
+ * Every power of two is split into {@link #SUB_BUCKET_COUNT} linear buckets, so a percentile is
+ * reported with a relative error below 1 / {@link #SUB_BUCKET_COUNT}, and values below
+ * {@link #SUB_BUCKET_COUNT} are exact. All the counts live in one primitive array allocated up front,
+ * recording and querying allocate nothing. Not thread safe
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * Number of linear buckets per power of two
+     */
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough buckets for any positive long value
+     */
+    private static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+
+    private long totalCount;
+
+    private long minValue = Long.MAX_VALUE;
+
+    private long maxValue;
+
+    private long sum;
+
+    /**
+     * Record a value, negative values are recorded as 0
+     * @param value
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[bucketIndex(value)]++;
+        totalCount++;
+        sum += value;
+        if (value < minValue) minValue = value;
+        if (value > maxValue) maxValue = value;
+    }
+
+    /**
+     * Forget all the recorded values
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = 0;
+        }
+        totalCount = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+        sum = 0;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the smallest recorded value, 0 when nothing is recorded
+     */
+    public long getMinValue() {
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * @return the exact mean of the recorded values, 0 when nothing is recorded
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Get the value at a percentile
+     * @param percentile in [0, 100]
+     * @return the highest value of the bucket holding the percentile, capped by the recorded extremes.
+     *         0 when nothing is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be in [0, 100]: " + percentile);
+        }
+        if (totalCount == 0) return 0;
+
+        // Rank of the value, 1-based: the smallest value whose cumulative count reaches it
+        long rank = (long) Math.ceil(percentile / 100 * totalCount);
+        if (rank < 1) rank = 1;
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.max(minValue, Math.min(maxValue, bucketHighestValue(i)));
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * Get the index of the bucket of a value
+     * @param value non-negative
+     * @return
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Get the lowest value that falls into a bucket
+     * @param index
+     * @return
+     */
+    static long bucketLowestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        return (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+    }
+
+    /**
+     * Get the highest value that falls into a bucket
+     * @param index
+     * @return
+     */
+    static long bucketHighestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        return bucketLowestValue(index) + (1L << shift) - 1;
+    }
+}
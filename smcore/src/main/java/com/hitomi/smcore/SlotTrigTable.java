@@ -0,0 +1,103 @@
+package com.hitomi.smcore;
+
+/**
+ * Sine and cosine of the slots of a ring, the slots being evenly spaced from a base angle <br/>
+ *
+ * The sine and cosine of every slot offset are computed once. Each frame only the base angle is evaluated,
+ * and the slot values follow by angle addition:
+ * sin(a + b) = sin(a)cos(b) + cos(a)sin(b), cos(a + b) = cos(a)cos(b) - sin(a)sin(b).
+ * So a frame costs two trigonometric calls whatever the number of slots. Not thread safe
+ */
+public final class SlotTrigTable {
+
+    /**
+     * Angle between two slots, in degrees
+     */
+    private final float spacing;
+
+    /**
+     * Number of slots per turn when the spacing divides 360 degrees, the table then repeats. 0 otherwise
+     */
+    private final int period;
+
+    private double[] offsetSin = new double[0];
+
+    private double[] offsetCos = new double[0];
+
+    private double baseSin, baseCos = 1;
+
+    /**
+     * @param spacing angle between two slots in degrees, must be greater than 0
+     */
+    public SlotTrigTable(float spacing) {
+        if (spacing <= 0) {
+            throw new IllegalArgumentException("Slot spacing must be greater than 0: " + spacing);
+        }
+        this.spacing = spacing;
+        double slotsPerTurn = 360.0 / spacing;
+        period = slotsPerTurn == Math.rint(slotsPerTurn) ? (int) slotsPerTurn : 0;
+        if (period > 0) {
+            grow(period);
+        }
+    }
+
+    /**
+     * Make room for the slots [0, slotCount). Does nothing when the spacing divides 360 degrees,
+     * the table then covers every slot already
+     * @param slotCount
+     */
+    public void ensureCapacity(int slotCount) {
+        if (period == 0 && slotCount > offsetSin.length) {
+            grow(slotCount);
+        }
+    }
+
+    private void grow(int slotCount) {
+        int from = offsetSin.length;
+        double[] sin = new double[slotCount];
+        double[] cos = new double[slotCount];
+        System.arraycopy(offsetSin, 0, sin, 0, from);
+        System.arraycopy(offsetCos, 0, cos, 0, from);
+        for (int slot = from; slot < slotCount; slot++) {
+            double radians = Math.toRadians((double) slot * spacing);
+            sin[slot] = Math.sin(radians);
+            cos[slot] = Math.cos(radians);
+        }
+        offsetSin = sin;
+        offsetCos = cos;
+    }
+
+    /**
+     * Set the angle of slot 0, once per frame
+     * @param degrees
+     */
+    public void setBaseAngle(float degrees) {
+        double radians = Math.toRadians(degrees);
+        baseSin = Math.sin(radians);
+        baseCos = Math.cos(radians);
+    }
+
+    /**
+     * @param slot any slot when the spacing divides 360 degrees, otherwise in [0, capacity)
+     * @return the sine of the angle of the slot
+     */
+    public double sin(int slot) {
+        int index = indexOf(slot);
+        return baseSin * offsetCos[index] + baseCos * offsetSin[index];
+    }
+
+    /**
+     * @param slot any slot when the spacing divides 360 degrees, otherwise in [0, capacity)
+     * @return the cosine of the angle of the slot
+     */
+    public double cos(int slot) {
+        int index = indexOf(slot);
+        return baseCos * offsetCos[index] - baseSin * offsetSin[index];
+    }
+
+    private int indexOf(int slot) {
+        if (period == 0) return slot;
+        int index = slot % period;
+        return index < 0 ? index + period : index;
+    }
+}
@@ -0,0 +1,436 @@
+package com.hitomi.smcore;
+
+/**
+ * Angle math of the rotating ring, free of any Android dependency <br/>
+ *
+ * The ring rotates around the midpoint of the bottom edge of its view. Menu items are placed on
+ * slots {@link #ANGLE_SPACE} degrees apart, the slot of position 0 is straight above the center
+ * when the ring angle is 0, and the ring angle decreases as the menu items move to the left. <br/>
+ *
+ * All methods take and return primitives, or fill caller-owned primitive arrays, and allocate nothing,
+ * so they can be called on every touch sample and frame
+ */
+public final class SpinGeometry {
+
+    /**
+     * Angle of view between views
+     */
+    public static final int ANGLE_SPACE = 45;
+
+    /**
+     * The minimum rotation angle of the view when rotating
+     */
+    public static final int MIN_PER_ANGLE = ANGLE_SPACE;
+
+    /**
+     * Used to lengthen the radius, no other meaning
+     */
+    public static final float RADIUS_HALF_WIDTH_RATIO = 1.2f;
+
+    /**
+     * Half of the arc around the center slot in which the menu items are bound to views,
+     * one slot wider than the visible part of the ring above the bottom edge
+     */
+    public static final int BOUND_HALF_ARC = 90 + ANGLE_SPACE;
+
+    /**
+     * Coordinates closer than this to a whole pixel are taken as that pixel before truncation,
+     * so the rounding errors of the trigonometry never move a menu item by one pixel
+     */
+    private static final double PIXEL_EPSILON = 1e-6;
+
+    /**
+     * Number of menu items and whether the ring loops through them
+     */
+    private int itemCount;
+
+    private boolean isCyclic;
+
+    /**
+     * Minimum and maximum inertial roll angle values [-(itemCount - 1) * ANGLE_SPACE, 0]
+     */
+    private int minFlingAngle, maxFlingAngle;
+
+    /**
+     * Size of the ring view, the center of rotation is (width / 2, height)
+     */
+    private int width, height;
+
+    /**
+     * Radius: the midpoint from the bottom edge to the menu item height
+     */
+    private float radius;
+
+    /**
+     * Sine and cosine of the slots, used by {@link #placeSlot(int, int[])}
+     */
+    private final SlotTrigTable slotTable = new SlotTrigTable(ANGLE_SPACE);
+
+    /**
+     * Set the number of menu items, the ring loops through them when they fill the whole circle
+     * @param count
+     */
+    public void setItemCount(int count) {
+        itemCount = count;
+        isCyclic = itemCount == 360 / MIN_PER_ANGLE;
+
+        // Since the center point is at the midpoint of the bottom edge (the coordinate system is opposite),
+        // the min and max calculated here are opposite to the actual one.
+        minFlingAngle = isCyclic ? Integer.MIN_VALUE : -ANGLE_SPACE * (itemCount - 1);
+        maxFlingAngle = isCyclic ? Integer.MAX_VALUE : 0;
+        slotTable.ensureCapacity(itemCount);
+    }
+
+    /**
+     * Set the size of the ring view and of its menu items
+     * @param width
+     * @param height
+     * @param itemHeight height of a menu item, the menu items are centered on the circle
+     */
+    public void setSize(int width, int height, int itemHeight) {
+        this.width = width;
+        this.height = height;
+        radius = width / 2 * RADIUS_HALF_WIDTH_RATIO + itemHeight / 2;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public boolean isCyclic() {
+        return isCyclic;
+    }
+
+    public int getMinFlingAngle() {
+        return minFlingAngle;
+    }
+
+    public int getMaxFlingAngle() {
+        return maxFlingAngle;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * Get the angle of the slot of a position on the ring rotated by the ring angle
+     * @param position
+     * @param ringAngle
+     * @return
+     */
+    public float getSlotAngle(int position, float ringAngle) {
+        return position * ANGLE_SPACE + ringAngle;
+    }
+
+    /**
+     * Get the x coordinate of the center of the menu item placed at the slot angle
+     * @param slotAngle
+     * @return
+     */
+    public int getSlotX(float slotAngle) {
+        return toPixel(width / 2 + Math.sin(Math.toRadians(slotAngle)) * radius);
+    }
+
+    /**
+     * Get the y coordinate of the center of the menu item placed at the slot angle
+     * @param slotAngle
+     * @return
+     */
+    public int getSlotY(float slotAngle) {
+        return toPixel(height - Math.cos(Math.toRadians(slotAngle)) * radius);
+    }
+
+    /**
+     * Get the center of the menu item placed at the slot angle, converting the angle to radians only once
+     * @param slotAngle
+     * @param outCenter receives the x and y coordinates
+     */
+    public void computeSlotCenter(float slotAngle, int[] outCenter) {
+        double radians = Math.toRadians(slotAngle);
+        outCenter[0] = toPixel(width / 2 + Math.sin(radians) * radius);
+        outCenter[1] = toPixel(height - Math.cos(radians) * radius);
+    }
+
+    /**
+     * Set the ring angle used by {@link #placeSlot(int, int[])}, once per layout pass.
+     * This is the only trigonometry of the pass
+     * @param ringAngle
+     */
+    public void setPlacementAngle(float ringAngle) {
+        slotTable.setBaseAngle(ringAngle);
+    }
+
+    /**
+     * Get the center of the menu item of a position on the ring rotated by the placement angle.
+     * Gives the same pixels as {@link #computeSlotCenter(float, int[])} without any trigonometric call
+     * @param position in [0, itemCount)
+     * @param outCenter receives the x and y coordinates
+     */
+    public void placeSlot(int position, int[] outCenter) {
+        outCenter[0] = toPixel(width / 2 + slotTable.sin(position) * radius);
+        outCenter[1] = toPixel(height - slotTable.cos(position) * radius);
+    }
+
+    /**
+     * Whether the menu item of a position on the ring rotated by the placement angle may intersect the view.
+     * The menu item is bounded by the circle around its center, which holds it whatever its rotation
+     * @param position in [0, itemCount)
+     * @param itemWidth
+     * @param itemHeight
+     * @return false only when the menu item is entirely outside the view
+     */
+    public boolean isSlotVisible(int position, int itemWidth, int itemHeight) {
+        double halfDiagonal = Math.sqrt((double) itemWidth * itemWidth + (double) itemHeight * itemHeight) / 2;
+        double x = width / 2 + slotTable.sin(position) * radius;
+        double y = height - slotTable.cos(position) * radius;
+        return x + halfDiagonal > 0 && x - halfDiagonal < width
+                && y + halfDiagonal > 0 && y - halfDiagonal < height;
+    }
+
+    /**
+     * Find the slot under a touch point, the menu items being centered on the circle and rotated by their slot angle
+     * @param x
+     * @param y
+     * @param ringAngle
+     * @param itemWidth
+     * @param itemHeight
+     * @return the position of the slot, -1 when the point is on no menu item
+     */
+    public int findSlotAt(float x, float y, float ringAngle, int itemWidth, int itemHeight) {
+        if (itemCount <= 0) return -1;
+        double dx = x - width / 2;
+        double dy = height - y;
+        double distance = Math.hypot(dx, dy);
+        // Angle of the point, clockwise from straight up like the slot angles
+        double pointAngle = Math.toDegrees(Math.atan2(dx, dy));
+        int position = (int) Math.round((pointAngle - ringAngle) / ANGLE_SPACE);
+        double offsetRadians = Math.toRadians(pointAngle - ringAngle - position * ANGLE_SPACE);
+        // Coordinates of the point in the frame of the menu item
+        double along = distance * Math.cos(offsetRadians) - radius;
+        double across = distance * Math.sin(offsetRadians);
+        if (Math.abs(along) > itemHeight / 2.0 || Math.abs(across) > itemWidth / 2.0) return -1;
+
+        position = normalizePosition(position);
+        return position >= 0 && position < itemCount ? position : -1;
+    }
+
+    /**
+     * Truncate a coordinate to a pixel, see {@link #PIXEL_EPSILON}
+     * @param value
+     * @return
+     */
+    private static int toPixel(double value) {
+        double rounded = Math.rint(value);
+        return (int) (Math.abs(value - rounded) < PIXEL_EPSILON ? rounded : value);
+    }
+
+    /**
+     * Calculate the angle of rotation based on the coordinates of the current touch point
+     * @param xTouch
+     * @param yTouch
+     * @return the angle between the touch point and the bottom edge, in [0, 90] degrees
+     */
+    public float computeAngle(float xTouch, float yTouch) {
+        // The center point is at the midpoint of the bottom edge,
+        // and the point is converted to the corresponding coordinate x, y according to the center point.
+        float x = Math.abs(xTouch - width / 2);
+        float y = Math.abs(height - yTouch);
+        return (float) (Math.asin(y / Math.hypot(x, y)) * 180 / Math.PI);
+    }
+
+    /**
+     * Calculate the rotation from the previous touch point to the current one
+     * @param preX
+     * @param preY
+     * @param curX
+     * @param curY
+     * @return positive when the finger moves to the right
+     */
+    public float computeRotation(float preX, float preY, float curX, float curY) {
+        return computeRotation(computeAngle(preX, preY), computeAngle(curX, curY), curX - preX);
+    }
+
+    /**
+     * Calculate the rotation between the angles of two touch points, see {@link #computeAngle(float, float)}
+     * @param startAngle angle of the previous touch point
+     * @param endAngle angle of the current touch point
+     * @param diffX horizontal move from the previous touch point to the current one
+     * @return positive when the finger moves to the right
+     */
+    public float computeRotation(float startAngle, float endAngle, float diffX) {
+        if (diffX > 0) {
+            return Math.abs(startAngle - endAngle);
+        } else {
+            return -Math.abs(endAngle - startAngle);
+        }
+    }
+
+    /**
+     * Calculate the angle to rotate by at the end of the automatic scrolling, so that a slot stops at the center
+     * @param remainder ring angle modulo {@link #ANGLE_SPACE}
+     * @param perAngle rotation of the last gesture, its sign is the direction of the rotation
+     * @return
+     */
+    public int computeDistanceToEndAngle(int remainder, float perAngle) {
+        int endAngle;
+        if (remainder > 0) {
+            if (Math.abs(remainder) > ANGLE_SPACE / 2) {
+                if (perAngle < 0) { // Counterclockwise
+                    endAngle = ANGLE_SPACE - remainder;
+                } else { // Clockwise
+                    endAngle = ANGLE_SPACE - Math.abs(remainder);
+                }
+            } else {
+                endAngle = -remainder;
+            }
+        } else {
+            if (Math.abs(remainder) > ANGLE_SPACE / 2) {
+                if (perAngle < 0) {
+                    endAngle = -ANGLE_SPACE - remainder;
+                } else {
+                    endAngle = Math.abs(remainder) - ANGLE_SPACE;
+                }
+            } else {
+                endAngle = -remainder;
+            }
+        }
+        return endAngle;
+    }
+
+    /**
+     * Calculate the angle to rotate by so that the clicked position moves to the center slot
+     * @param clickPosition
+     * @param selectedPosition
+     * @return
+     */
+    public int computeClickToEndAngle(int clickPosition, int selectedPosition) {
+        if (isCyclic) {
+            clickPosition = clickPosition == 0 && selectedPosition == itemCount - 1 ? itemCount : clickPosition;
+            selectedPosition = selectedPosition == 0 && clickPosition != 1 ? itemCount : selectedPosition;
+        }
+        return (selectedPosition - clickPosition) * ANGLE_SPACE;
+    }
+
+    /**
+     * Keep the final angle of the automatic scrolling inside the fling range when the ring does not loop
+     * @param finalAngle
+     * @return
+     */
+    public int clampFinalAngle(int finalAngle) {
+        if (isCyclic) return finalAngle;
+        if (finalAngle >= maxFlingAngle) {
+            return maxFlingAngle;
+        } else if (finalAngle <= minFlingAngle) {
+            return minFlingAngle;
+        }
+        return finalAngle;
+    }
+
+    /**
+     * Get the position selected when the ring rests at the angle
+     * @param restAngle ring angle at the end of the automatic scrolling, a multiple of {@link #ANGLE_SPACE}
+     * @return
+     */
+    public int getSelectedPosition(int restAngle) {
+        if (itemCount <= 0) return 0;
+        return normalizePosition(-restAngle / ANGLE_SPACE);
+    }
+
+    /**
+     * Calculate the position of the menu item closest to the center slot from the ring angle
+     * @param ringAngle
+     * @return the position, -1 when there is no menu item
+     */
+    public int computeCenterPosition(float ringAngle) {
+        if (itemCount <= 0) return -1;
+        int position = Math.round(-ringAngle / ANGLE_SPACE);
+        if (isCyclic) {
+            position = normalizePosition(position);
+        } else {
+            position = Math.max(0, Math.min(itemCount - 1, position));
+        }
+        return position;
+    }
+
+    /**
+     * Get the position whose slot is at or has just passed the center slot, the scroll moves from it towards the next one
+     * @param ringAngle
+     * @return the position, -1 when there is no menu item
+     */
+    public int computeScrollPosition(float ringAngle) {
+        if (itemCount <= 0) return -1;
+        int position = (int) Math.floor(-ringAngle / ANGLE_SPACE);
+        if (isCyclic) {
+            return normalizePosition(position);
+        }
+        return Math.max(0, Math.min(itemCount - 1, position));
+    }
+
+    /**
+     * Get how far the ring is from the slot of {@link #computeScrollPosition(float)} towards the next position
+     * @param ringAngle
+     * @return the offset in [0, 1), 0 beyond the first and last menu item of a ring that does not loop
+     */
+    public float computeScrollOffset(float ringAngle) {
+        if (itemCount <= 0) return 0;
+        float page = -ringAngle / ANGLE_SPACE;
+        if (!isCyclic && (page < 0 || page >= itemCount - 1)) return 0;
+        return page - (float) Math.floor(page);
+    }
+
+    /**
+     * Get the first position strictly inside the bound arc around the center slot
+     * @param ringAngle
+     * @return the position, not wrapped around in the cyclic mode
+     */
+    public int computeFirstBoundPosition(float ringAngle) {
+        int first = (int) Math.floor((-BOUND_HALF_ARC - ringAngle) / ANGLE_SPACE) + 1;
+        return isCyclic ? first : Math.max(first, 0);
+    }
+
+    /**
+     * Get the last position strictly inside the bound arc around the center slot
+     * @param ringAngle
+     * @return the position, not wrapped around in the cyclic mode
+     */
+    public int computeLastBoundPosition(float ringAngle) {
+        int last = (int) Math.ceil((BOUND_HALF_ARC - ringAngle) / ANGLE_SPACE) - 1;
+        return isCyclic ? last : Math.min(last, itemCount - 1);
+    }
+
+    /**
+     * Get the maximum number of positions inside the bound arc at the same time
+     * @return
+     */
+    public static int getMaxBoundItemCount() {
+        return BOUND_HALF_ARC * 2 / ANGLE_SPACE;
+    }
+
+    /**
+     * Wrap a position into [0, itemCount) in the cyclic mode
+     * @param position
+     * @return
+     */
+    public int normalizePosition(int position) {
+        if (isCyclic) {
+            position %= itemCount;
+            if (position < 0) position += itemCount;
+        }
+        return position;
+    }
+
+    /**
+     * Get the number of slots between two positions of the ring, taking the cyclic mode into account
+     * @param position
+     * @param otherPosition
+     * @return
+     */
+    public int getSlotDistance(int position, int otherPosition) {
+        int distance = Math.abs(position - otherPosition);
+        if (isCyclic) {
+            distance = Math.min(distance, itemCount - distance);
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,70 @@
+package com.hitomi.smcore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets_coverEveryValueWithoutGaps() throws Exception {
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketLowestValue(index) <= value);
+            assertTrue(LatencyHistogram.bucketHighestValue(index) >= value);
+        }
+        assertEquals(16, LatencyHistogram.bucketLowestValue(LatencyHistogram.bucketIndex(17)));
+        assertEquals(17, LatencyHistogram.bucketHighestValue(LatencyHistogram.bucketIndex(16)));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketHighestValue(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void smallValues_areExact() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 0; value < LatencyHistogram.SUB_BUCKET_COUNT; value++) {
+            histogram.record(value);
+        }
+        assertEquals(8, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(3, histogram.getValueAtPercentile(50));
+        assertEquals(7, histogram.getValueAtPercentile(100));
+        assertEquals(3.5, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void percentiles_stayWithinTheBucketError() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p50 >= 5000 && p50 < 5000 * 9 / 8);
+        assertTrue(p99 >= 9900 && p99 <= 10000);
+        assertEquals(10000, histogram.getValueAtPercentile(100));
+        assertEquals(1, histogram.getMinValue());
+        assertEquals(10000, histogram.getMaxValue());
+    }
+
+    @Test
+    public void reset_forgetsEverything() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(12345);
+        histogram.record(-5);
+        assertEquals(0, histogram.getMinValue());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMinValue());
+        assertEquals(0, histogram.getMaxValue());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        histogram.record(40);
+        assertEquals(40, histogram.getValueAtPercentile(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentile_outOfRangeIsRejected() throws Exception {
+        new LatencyHistogram().getValueAtPercentile(101);
+    }
+}
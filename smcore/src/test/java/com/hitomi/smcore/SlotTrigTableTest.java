@@ -0,0 +1,48 @@
+package com.hitomi.smcore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SlotTrigTableTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void slots_matchTheDirectTrigonometryForAnySpacing() throws Exception {
+        float[] spacings = {45f, 30f, 37.5f, 7f, 100f};
+        for (float spacing : spacings) {
+            SlotTrigTable table = new SlotTrigTable(spacing);
+            table.ensureCapacity(64);
+            for (float base = -400f; base <= 400f; base += 3.3f) {
+                table.setBaseAngle(base);
+                for (int slot = 0; slot < 64; slot++) {
+                    double radians = Math.toRadians((double) base + (double) slot * spacing);
+                    assertEquals(Math.sin(radians), table.sin(slot), DELTA);
+                    assertEquals(Math.cos(radians), table.cos(slot), DELTA);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void periodicSpacing_coversEverySlot() throws Exception {
+        SlotTrigTable table = new SlotTrigTable(45f);
+        table.setBaseAngle(10f);
+        assertEquals(table.sin(1), table.sin(9), DELTA);
+        assertEquals(table.cos(-1), table.cos(7), DELTA);
+        assertEquals(Math.sin(Math.toRadians(10 + 45 * 1000)), table.sin(1000), DELTA);
+    }
+
+    @Test
+    public void defaultBaseAngle_isZero() throws Exception {
+        SlotTrigTable table = new SlotTrigTable(90f);
+        assertEquals(1, table.sin(1), DELTA);
+        assertEquals(-1, table.cos(2), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void spacing_mustBePositive() throws Exception {
+        new SlotTrigTable(0f);
+    }
+}
@@ -0,0 +1,266 @@
+package com.hitomi.smcore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpinGeometryTest {
+
+    private SpinGeometry linear;
+
+    private SpinGeometry cyclic;
+
+    @Before
+    public void setUp() throws Exception {
+        linear = new SpinGeometry();
+        linear.setItemCount(5);
+        cyclic = new SpinGeometry();
+        cyclic.setItemCount(8);
+    }
+
+    @Test
+    public void itemCount_decidesCyclicModeAndFlingRange() throws Exception {
+        assertFalse(linear.isCyclic());
+        assertEquals(-180, linear.getMinFlingAngle());
+        assertEquals(0, linear.getMaxFlingAngle());
+
+        assertTrue(cyclic.isCyclic());
+        assertEquals(Integer.MIN_VALUE, cyclic.getMinFlingAngle());
+        assertEquals(Integer.MAX_VALUE, cyclic.getMaxFlingAngle());
+    }
+
+    @Test
+    public void slotPlacement_isOnTheCircleAroundTheBottomCenter() throws Exception {
+        linear.setSize(200, 100, 20);
+        assertEquals(130f, linear.getRadius(), 0f);
+
+        assertEquals(-90f, linear.getSlotAngle(0, -90f), 0f);
+        assertEquals(135f, linear.getSlotAngle(3, 0f), 0f);
+
+        assertEquals(100, linear.getSlotX(0f));
+        assertEquals(-30, linear.getSlotY(0f));
+        assertEquals(100, linear.getSlotX(180f));
+        assertEquals(230, linear.getSlotY(180f));
+        assertEquals(-30, linear.getSlotX(-90f));
+    }
+
+    @Test
+    public void placeSlot_givesTheSamePixelsAsTheDirectTrigonometry() throws Exception {
+        int[] direct = new int[2];
+        int[] placed = new int[2];
+        int[][] sizes = {{1080, 1920, 690}, {720, 1280, 461}, {200, 100, 20}, {1440, 2560, 921}};
+        for (int[] size : sizes) {
+            cyclic.setSize(size[0], size[1], size[2]);
+            for (float ringAngle = -720f; ringAngle <= 720f; ringAngle += 0.125f) {
+                cyclic.setPlacementAngle(ringAngle);
+                for (int position = 0; position < cyclic.getItemCount(); position++) {
+                    cyclic.computeSlotCenter(cyclic.getSlotAngle(position, ringAngle), direct);
+                    cyclic.placeSlot(position, placed);
+                    assertArrayEquals("angle " + ringAngle + " position " + position, direct, placed);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void slotCoordinates_areNotShiftedByRoundingErrors() throws Exception {
+        linear.setSize(200, 100, 20);
+        // cos(90 degrees) is not exactly 0 in floating point
+        assertEquals(100, linear.getSlotY(90f));
+        assertEquals(100, linear.getSlotY(-90f));
+    }
+
+    @Test
+    public void isSlotVisible_cullsTheSlotsOutsideTheView() throws Exception {
+        cyclic.setSize(1080, 1920, 690);
+        cyclic.setPlacementAngle(0f);
+        assertTrue(cyclic.isSlotVisible(0, 389, 690));
+        assertTrue(cyclic.isSlotVisible(1, 389, 690));
+        assertTrue(cyclic.isSlotVisible(7, 389, 690));
+        // Beside the right edge, below the bottom edge and behind the center
+        assertFalse(cyclic.isSlotVisible(2, 389, 690));
+        assertFalse(cyclic.isSlotVisible(3, 389, 690));
+        assertFalse(cyclic.isSlotVisible(4, 389, 690));
+
+        // Half a slot further, the slot of position 2 enters the view and position 7 is still partly in it
+        cyclic.setPlacementAngle(-22.5f);
+        assertTrue(cyclic.isSlotVisible(2, 389, 690));
+        assertTrue(cyclic.isSlotVisible(7, 389, 690));
+        assertFalse(cyclic.isSlotVisible(4, 389, 690));
+        assertFalse(cyclic.isSlotVisible(5, 389, 690));
+    }
+
+    @Test
+    public void isSlotVisible_neverCullsAnIntersectingMenuItem() throws Exception {
+        int[] center = new int[2];
+        int itemWidth = 389, itemHeight = 690;
+        cyclic.setSize(1080, 1920, itemHeight);
+        for (float ringAngle = -360f; ringAngle <= 360f; ringAngle += 0.5f) {
+            cyclic.setPlacementAngle(ringAngle);
+            for (int position = 0; position < cyclic.getItemCount(); position++) {
+                if (cyclic.isSlotVisible(position, itemWidth, itemHeight)) continue;
+                // The bounding box of the rotated menu item is outside the view
+                double radians = Math.toRadians(cyclic.getSlotAngle(position, ringAngle));
+                double halfX = (Math.abs(Math.cos(radians)) * itemWidth + Math.abs(Math.sin(radians)) * itemHeight) / 2;
+                double halfY = (Math.abs(Math.sin(radians)) * itemWidth + Math.abs(Math.cos(radians)) * itemHeight) / 2;
+                cyclic.placeSlot(position, center);
+                assertTrue("angle " + ringAngle + " position " + position,
+                        center[0] + halfX <= 0 || center[0] - halfX >= 1080
+                                || center[1] + halfY <= 0 || center[1] - halfY >= 1920);
+            }
+        }
+    }
+
+    @Test
+    public void findSlotAt_hitsTheMenuItemUnderThePoint() throws Exception {
+        int[] center = new int[2];
+        cyclic.setSize(1080, 1920, 690);
+        for (float ringAngle = -90f; ringAngle <= 90f; ringAngle += 7.5f) {
+            for (int position = 0; position < cyclic.getItemCount(); position++) {
+                cyclic.computeSlotCenter(cyclic.getSlotAngle(position, ringAngle), center);
+                assertEquals("angle " + ringAngle, position, cyclic.findSlotAt(center[0], center[1], ringAngle, 389, 690));
+            }
+        }
+        // Between two slots, and at the center of rotation
+        assertEquals(-1, cyclic.findSlotAt(540 + 993 * (float) Math.sin(Math.PI / 8), 1920 - 993 * (float) Math.cos(Math.PI / 8), 0f, 389, 690));
+        assertEquals(-1, cyclic.findSlotAt(540, 1920, 0f, 389, 690));
+
+        linear.setSize(1080, 1920, 690);
+        linear.computeSlotCenter(-45f, center);
+        assertEquals(-1, linear.findSlotAt(center[0], center[1], 0f, 389, 690));
+        assertEquals(-1, new SpinGeometry().findSlotAt(0, 0, 0f, 0, 0));
+    }
+
+    @Test
+    public void findSlotAt_atRestOnASelection_hitsTheNeighboursOnScreen() throws Exception {
+        // Rigid rotation: the touch point stays in the unrotated frame, the slots are turned by the rest angle
+        int[] center = new int[2];
+        cyclic.setSize(1080, 1920, 690);
+        for (int selected = 0; selected < cyclic.getItemCount(); selected++) {
+            float restAngle = -selected * SpinGeometry.ANGLE_SPACE;
+            cyclic.computeSlotCenter(SpinGeometry.ANGLE_SPACE, center);
+            assertEquals(cyclic.normalizePosition(selected + 1), cyclic.findSlotAt(center[0], center[1], restAngle, 389, 690));
+            cyclic.computeSlotCenter(-SpinGeometry.ANGLE_SPACE, center);
+            assertEquals(cyclic.normalizePosition(selected - 1), cyclic.findSlotAt(center[0], center[1], restAngle, 389, 690));
+            cyclic.computeSlotCenter(0, center);
+            assertEquals(selected, cyclic.findSlotAt(center[0], center[1], restAngle, 389, 690));
+        }
+    }
+
+    @Test
+    public void computeAngle_isMeasuredFromTheBottomEdge() throws Exception {
+        linear.setSize(200, 100, 0);
+        assertEquals(90f, linear.computeAngle(100, 0), 1e-4f);
+        assertEquals(0f, linear.computeAngle(200, 100), 1e-4f);
+        assertEquals(45f, linear.computeAngle(0, 0), 1e-4f);
+        assertEquals(45f, linear.computeAngle(200, 0), 1e-4f);
+    }
+
+    @Test
+    public void computeRotation_followsTheHorizontalDirection() throws Exception {
+        linear.setSize(200, 100, 0);
+        assertEquals(45f, linear.computeRotation(0, 0, 100, 0), 1e-4f);
+        assertEquals(-45f, linear.computeRotation(100, 0, 0, 0), 1e-4f);
+        assertEquals(0f, linear.computeRotation(50, 50, 50, 50), 0f);
+    }
+
+    @Test
+    public void computeDistanceToEndAngle_snapsToTheNearestSlot() throws Exception {
+        assertEquals(-10, linear.computeDistanceToEndAngle(10, 1));
+        assertEquals(-22, linear.computeDistanceToEndAngle(22, -1));
+        assertEquals(15, linear.computeDistanceToEndAngle(30, 1));
+        assertEquals(15, linear.computeDistanceToEndAngle(30, -1));
+        assertEquals(10, linear.computeDistanceToEndAngle(-10, 1));
+        assertEquals(-15, linear.computeDistanceToEndAngle(-30, 1));
+        assertEquals(-15, linear.computeDistanceToEndAngle(-30, -1));
+        assertEquals(0, linear.computeDistanceToEndAngle(0, 0));
+    }
+
+    @Test
+    public void computeClickToEndAngle_takesTheShortWayAroundInCyclicMode() throws Exception {
+        assertEquals(-90, linear.computeClickToEndAngle(2, 0));
+        assertEquals(45, linear.computeClickToEndAngle(3, 4));
+
+        assertEquals(-45, cyclic.computeClickToEndAngle(0, 7));
+        assertEquals(45, cyclic.computeClickToEndAngle(7, 0));
+        assertEquals(-45, cyclic.computeClickToEndAngle(1, 0));
+    }
+
+    @Test
+    public void clampFinalAngle_keepsTheLinearRingInRange() throws Exception {
+        assertEquals(0, linear.clampFinalAngle(30));
+        assertEquals(-180, linear.clampFinalAngle(-200));
+        assertEquals(-90, linear.clampFinalAngle(-90));
+        assertEquals(405, cyclic.clampFinalAngle(405));
+    }
+
+    @Test
+    public void getSelectedPosition_isThePositionAtTheRestAngle() throws Exception {
+        assertEquals(0, linear.getSelectedPosition(0));
+        assertEquals(2, linear.getSelectedPosition(-90));
+        assertEquals(7, cyclic.getSelectedPosition(45));
+        assertEquals(0, cyclic.getSelectedPosition(-360));
+        assertEquals(0, new SpinGeometry().getSelectedPosition(-90));
+    }
+
+    @Test
+    public void computeCenterPosition_roundsToTheClosestSlot() throws Exception {
+        assertEquals(2, linear.computeCenterPosition(-100f));
+        assertEquals(0, linear.computeCenterPosition(30f));
+        assertEquals(4, linear.computeCenterPosition(-1000f));
+        assertEquals(7, cyclic.computeCenterPosition(30f));
+        assertEquals(1, cyclic.computeCenterPosition(-400f));
+        assertEquals(-1, new SpinGeometry().computeCenterPosition(0f));
+    }
+
+    @Test
+    public void scrollPositionAndOffset_followTheRingAngle() throws Exception {
+        assertEquals(0, linear.computeScrollPosition(0f));
+        assertEquals(0f, linear.computeScrollOffset(0f), 0f);
+        assertEquals(1, linear.computeScrollPosition(-67.5f));
+        assertEquals(.5f, linear.computeScrollOffset(-67.5f), 1e-6f);
+        assertEquals(2, linear.computeScrollPosition(-90f));
+        assertEquals(0f, linear.computeScrollOffset(-90f), 0f);
+        // Dragged beyond the first and last menu item
+        assertEquals(0, linear.computeScrollPosition(20f));
+        assertEquals(0f, linear.computeScrollOffset(20f), 0f);
+        assertEquals(4, linear.computeScrollPosition(-200f));
+        assertEquals(0f, linear.computeScrollOffset(-200f), 0f);
+
+        assertEquals(7, cyclic.computeScrollPosition(9f));
+        assertEquals(.8f, cyclic.computeScrollOffset(9f), 1e-6f);
+        assertEquals(1, cyclic.computeScrollPosition(-405f));
+        assertEquals(-1, new SpinGeometry().computeScrollPosition(0f));
+    }
+
+    @Test
+    public void boundPositions_stayInsideTheBoundArc() throws Exception {
+        assertEquals(-2, cyclic.computeFirstBoundPosition(0f));
+        assertEquals(2, cyclic.computeLastBoundPosition(0f));
+        assertEquals(-2, cyclic.computeFirstBoundPosition(-10f));
+        assertEquals(3, cyclic.computeLastBoundPosition(-10f));
+
+        assertEquals(0, linear.computeFirstBoundPosition(0f));
+        assertEquals(2, linear.computeLastBoundPosition(0f));
+        assertEquals(2, linear.computeFirstBoundPosition(-180f));
+        assertEquals(4, linear.computeLastBoundPosition(-180f));
+
+        assertEquals(6, SpinGeometry.getMaxBoundItemCount());
+        for (float angle = -720f; angle <= 720f; angle += 0.25f) {
+            int count = cyclic.computeLastBoundPosition(angle) - cyclic.computeFirstBoundPosition(angle) + 1;
+            assertTrue("angle " + angle, count <= SpinGeometry.getMaxBoundItemCount());
+        }
+    }
+
+    @Test
+    public void positions_wrapAroundOnlyInCyclicMode() throws Exception {
+        assertEquals(7, cyclic.normalizePosition(-1));
+        assertEquals(1, cyclic.normalizePosition(17));
+        assertEquals(-1, linear.normalizePosition(-1));
+
+        assertEquals(1, cyclic.getSlotDistance(0, 7));
+        assertEquals(4, cyclic.getSlotDistance(2, 6));
+        assertEquals(4, linear.getSlotDistance(0, 4));
+    }
+}
@@ -0,0 +1,89 @@
+package com.hitomi.smlibrary;
+
+/**
+ * Estimate the angular velocity of the ring from the most recent touch samples <br/>
+ *
+ * Samples are kept in a fixed size ring buffer, and the velocity is the least squares slope
+ * of the accumulated angle over the samples inside {@link #HORIZON} milliseconds
+ */
+class AngularVelocityTracker {
+
+    /**
+     * Maximum number of samples kept
+     */
+    private static final int HISTORY_SIZE = 20;
+
+    /**
+     * Only the samples within this time window (ms) of the newest sample are taken into account
+     */
+    private static final long HORIZON = 100;
+
+    /**
+     * Time gap (ms) between two samples after which the finger is assumed to have stopped
+     */
+    private static final long ASSUME_STOPPED_TIME = 40;
+
+    private final long[] sampleTimes = new long[HISTORY_SIZE];
+
+    private final float[] sampleAngles = new float[HISTORY_SIZE];
+
+    /**
+     * Index of the newest sample, and the number of samples
+     */
+    private int index, count;
+
+    public void clear() {
+        index = 0;
+        count = 0;
+    }
+
+    /**
+     * Add a sample
+     * @param eventTime time of the sample, in the {@link android.view.MotionEvent#getEventTime()} time base
+     * @param angle accumulated rotation angle at that time
+     */
+    public void addSample(long eventTime, float angle) {
+        if (count > 0) {
+            index = (index + 1) % HISTORY_SIZE;
+        }
+        sampleTimes[index] = eventTime;
+        sampleAngles[index] = angle;
+        if (count < HISTORY_SIZE) {
+            count++;
+        }
+    }
+
+    /**
+     * Compute the angular velocity
+     * @return degrees per second, 0 when there are not enough recent samples
+     */
+    public float getVelocity() {
+        if (count < 2) return 0;
+
+        final long newestTime = sampleTimes[index];
+        final float newestAngle = sampleAngles[index];
+        float sumT = 0, sumA = 0, sumTT = 0, sumTA = 0;
+        int n = 0;
+        long prevTime = newestTime;
+        for (int i = 0; i < count; i++) {
+            int pos = (index - i + HISTORY_SIZE) % HISTORY_SIZE;
+            long time = sampleTimes[pos];
+            if (newestTime - time > HORIZON || prevTime - time > ASSUME_STOPPED_TIME) break;
+            prevTime = time;
+
+            // Relative to the newest sample, in seconds and degrees, to keep the float sums small
+            float t = (time - newestTime) / 1000.f;
+            float a = sampleAngles[pos] - newestAngle;
+            sumT += t;
+            sumA += a;
+            sumTT += t * t;
+            sumTA += t * a;
+            n++;
+        }
+        if (n < 2) return 0;
+
+        float denominator = n * sumTT - sumT * sumT;
+        if (denominator == 0) return 0;
+        return (n * sumTA - sumT * sumA) / denominator;
+    }
+}
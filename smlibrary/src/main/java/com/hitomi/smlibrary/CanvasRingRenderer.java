@@ -0,0 +1,113 @@
+package com.hitomi.smlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import java.util.List;
+
+/**
+ * Paint the menu items of the canvas ring mode, which have no view of their own <br/>
+ *
+ * A painted menu item looks like an {@link SMItemLayout}: the cached snapshot of its page, or a placeholder
+ * while there is none, above its title. The title metrics are measured once per text style, not per frame
+ */
+class CanvasRingRenderer {
+
+    private final Paint thumbnailPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private final Paint placeholderPaint = new Paint();
+
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    /**
+     * Snapshot cache of the pages, filled while the pages are live in the center slot
+     */
+    private ThumbnailCache thumbnailCache;
+
+    /**
+     * Page titles, by position
+     */
+    private List<String> labels;
+
+    /**
+     * Size of the page container of a menu item
+     */
+    private int containerWidth, containerHeight;
+
+    /**
+     * Height of a title line, and distance from its top to its baseline
+     */
+    private int labelHeight;
+
+    private float labelBaseline;
+
+    CanvasRingRenderer() {
+        placeholderPaint.setColor(Color.parseColor("#EEEEEE"));
+        labelPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    void setThumbnailCache(ThumbnailCache cache) {
+        thumbnailCache = cache;
+    }
+
+    void setLabels(List<String> labels) {
+        this.labels = labels;
+    }
+
+    /**
+     * Set the text style of the titles and measure a title line
+     * @param textSize in pixels
+     * @param textColor
+     */
+    void setLabelStyle(float textSize, int textColor) {
+        labelPaint.setTextSize(textSize);
+        labelPaint.setColor(textColor);
+        Paint.FontMetrics fontMetrics = labelPaint.getFontMetrics();
+        labelHeight = (int) Math.ceil(fontMetrics.bottom - fontMetrics.top);
+        labelBaseline = -fontMetrics.top;
+    }
+
+    void setContainerSize(int width, int height) {
+        containerWidth = width;
+        containerHeight = height;
+    }
+
+    /**
+     * Get the width of a painted menu item, the width of its page container
+     * @return
+     */
+    int getItemWidth() {
+        return containerWidth;
+    }
+
+    /**
+     * Get the height of a painted menu item: page container, title margin and title
+     * @return
+     */
+    int getItemHeight() {
+        return containerHeight + SpinMenu.HINT_TOP_MARGIN + labelHeight;
+    }
+
+    /**
+     * Paint the menu item of a position, the canvas being centered on the menu item and rotated by its slot angle
+     * @param canvas
+     * @param position
+     */
+    void draw(Canvas canvas, int position) {
+        float left = -containerWidth / 2.f;
+        float top = -getItemHeight() / 2.f;
+        Bitmap thumbnail = thumbnailCache != null ? thumbnailCache.get(position) : null;
+        if (thumbnail != null) {
+            canvas.drawBitmap(thumbnail, left, top, thumbnailPaint);
+        } else {
+            canvas.drawRect(left, top, left + containerWidth, top + containerHeight, placeholderPaint);
+        }
+
+        if (labels != null && position < labels.size() && labels.get(position) != null) {
+            canvas.drawText(labels.get(position), 0,
+                    top + containerHeight + SpinMenu.HINT_TOP_MARGIN + labelBaseline, labelPaint);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.hitomi.smlibrary;
+
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * Record the display frames of the current interaction phase, and report them to the
+ * {@link OnSpinMenuMetricsListener} when the phase ends <br/>
+ *
+ * Only one phase is recorded at a time, beginning a phase ends the previous one.
+ * The frames come from the Choreographer, so below API 16 only the phase duration and the layout time are recorded
+ */
+class FrameMetricsRecorder {
+
+    private final OnSpinMenuMetricsListener listener;
+
+    private final PhaseMetrics metrics = new PhaseMetrics();
+
+    private long jankThresholdNanos;
+
+    private boolean isRecording;
+
+    private long startTimeNanos, lastFrameTimeNanos;
+
+    private Choreographer.FrameCallback frameCallback;
+
+    FrameMetricsRecorder(OnSpinMenuMetricsListener listener, long jankThresholdNanos) {
+        this.listener = listener;
+        this.jankThresholdNanos = jankThresholdNanos;
+    }
+
+    void setJankThresholdNanos(long thresholdNanos) {
+        jankThresholdNanos = thresholdNanos;
+    }
+
+    /**
+     * Start recording a phase, the phase in progress is ended and reported first
+     * @param phase
+     */
+    void begin(int phase) {
+        end();
+        metrics.reset(phase, jankThresholdNanos);
+        isRecording = true;
+        startTimeNanos = System.nanoTime();
+        lastFrameTimeNanos = -1;
+        postFrame();
+    }
+
+    /**
+     * End the phase in progress and report it, does nothing when no phase is recorded
+     */
+    void end() {
+        if (!isRecording) return;
+        isRecording = false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
+        metrics.setDurationNanos(System.nanoTime() - startTimeNanos);
+        listener.onPhaseMetrics(metrics);
+    }
+
+    boolean isRecording(int phase) {
+        return isRecording && metrics.getPhase() == phase;
+    }
+
+    /**
+     * Add the time of a layout pass of the ring to the phase in progress
+     * @param layoutNanos
+     */
+    void addLayoutTime(long layoutNanos) {
+        if (isRecording) {
+            metrics.addLayout(layoutNanos);
+        }
+    }
+
+    private void postFrame() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) return;
+        if (frameCallback == null) {
+            frameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    onFrame(frameTimeNanos);
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        if (!isRecording) return;
+        if (lastFrameTimeNanos >= 0) {
+            metrics.addFrame(frameTimeNanos - lastFrameTimeNanos);
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+        postFrame();
+    }
+}
@@ -0,0 +1,45 @@
+package com.hitomi.smlibrary;
+
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Promote views to hardware layers for the length of an animation, and restore their previous layer type afterwards <br/>
+ *
+ * A view on a hardware layer is rasterized once, then only the layer is transformed on each frame of
+ * a scale, translation or alpha animation
+ */
+class HardwareLayerHolder {
+
+    private final List<View> views = new ArrayList<>();
+
+    private final List<Integer> previousLayerTypes = new ArrayList<>();
+
+    /**
+     * Put the view on a hardware layer, remembering its current layer type
+     * @param view
+     */
+    public void promote(View view) {
+        if (view == null || views.contains(view)) return;
+        views.add(view);
+        previousLayerTypes.add(view.getLayerType());
+        view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+    }
+
+    /**
+     * Restore the layer type of all the promoted views
+     */
+    public void restore() {
+        for (int i = 0; i < views.size(); i++) {
+            views.get(i).setLayerType(previousLayerTypes.get(i), null);
+        }
+        views.clear();
+        previousLayerTypes.clear();
+    }
+
+    public int size() {
+        return views.size();
+    }
+}
@@ -0,0 +1,107 @@
+package com.hitomi.smlibrary;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+/**
+ * Run a task step by step while the main thread is idle, between two frames <br/>
+ *
+ * Each idle slice runs steps until the task is done or the time budget of the slice is spent,
+ * the remaining steps wait for the next idle slice. A single step is never interrupted, so no step
+ * runs while the task is deferred, e.g. while a frame is pending
+ */
+class IdlePrefetcher implements MessageQueue.IdleHandler {
+
+    /**
+     * Work split into small steps
+     */
+    interface Task {
+
+        /**
+         * Run the next step
+         * @return true if there are steps left
+         */
+        boolean runStep();
+
+        /**
+         * Whether the steps must wait, they are tried again in the next idle slice
+         * @return
+         */
+        boolean isDeferred();
+
+    }
+
+    private final Task task;
+
+    /**
+     * Time budget (ns) of an idle slice
+     */
+    private final long budgetNanos;
+
+    /**
+     * Whether the prefetcher waits for the next idle slice
+     */
+    private boolean isScheduled;
+
+    private final Handler handler = new Handler();
+
+    /**
+     * Registers the prefetcher again after a slice ran out of budget
+     */
+    private final Runnable continuation = new Runnable() {
+        @Override
+        public void run() {
+            if (isScheduled) {
+                Looper.myQueue().addIdleHandler(IdlePrefetcher.this);
+            }
+        }
+    };
+
+    IdlePrefetcher(Task task, long budgetNanos) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("Idle budget must be greater than 0");
+        }
+        this.task = task;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Run the task in the next idle slices of the main thread. Does nothing when it is already scheduled
+     */
+    public void schedule() {
+        if (isScheduled) return;
+        isScheduled = true;
+        Looper.myQueue().addIdleHandler(this);
+    }
+
+    /**
+     * Drop the steps not run yet
+     */
+    public void cancel() {
+        if (!isScheduled) return;
+        isScheduled = false;
+        Looper.myQueue().removeIdleHandler(this);
+        handler.removeCallbacks(continuation);
+    }
+
+    @Override
+    public boolean queueIdle() {
+        if (!isScheduled) return false;
+        // Staying registered tries again the next time the queue is idle, after the pending frame
+        if (task.isDeferred()) return true;
+        final long deadline = System.nanoTime() + budgetNanos;
+        boolean hasMoreSteps;
+        do {
+            hasMoreSteps = task.runStep();
+        } while (hasMoreSteps && System.nanoTime() < deadline);
+        if (!hasMoreSteps) {
+            isScheduled = false;
+            return false;
+        }
+        // The queue runs the idle handlers once per idle period, a message ends the period so that the
+        // next steps run as soon as the queue is idle again instead of after some unrelated message
+        handler.post(continuation);
+        return false;
+    }
+}
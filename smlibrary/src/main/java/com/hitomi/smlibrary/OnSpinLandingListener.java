@@ -0,0 +1,15 @@
+package com.hitomi.smlibrary;
+
+/**
+ * Callback interface when the menu starts an automatic rotation (fling, snap or click),
+ * as soon as the position it will stop on is known
+ */
+public interface OnSpinLandingListener {
+
+    /**
+     * @param position the position that will be selected when the rotation stops,
+     *                 reported again by {@link OnSpinSelectedListener} unless the rotation is interrupted
+     */
+    void onSpinLanding(int position);
+
+}
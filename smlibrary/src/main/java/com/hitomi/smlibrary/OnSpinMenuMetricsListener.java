@@ -0,0 +1,14 @@
+package com.hitomi.smlibrary;
+
+/**
+ * Callback interface when an interaction phase of the menu (drag, fling, snap, open or close) ends,
+ * with the frame statistics of that phase
+ */
+public interface OnSpinMenuMetricsListener {
+
+    /**
+     * @param metrics statistics of the phase, the instance is reused and only valid during the call
+     */
+    void onPhaseMetrics(PhaseMetrics metrics);
+
+}
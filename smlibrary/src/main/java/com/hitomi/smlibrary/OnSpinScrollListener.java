@@ -0,0 +1,15 @@
+package com.hitomi.smlibrary;
+
+/**
+ * Callback interface of the rotation of the menu, at most once per frame while the ring turns,
+ * whether it is dragged or scrolls automatically
+ */
+public interface OnSpinScrollListener {
+
+    /**
+     * @param position position whose slot is at or has just passed the center slot
+     * @param positionOffset how far the ring is from that position towards the next one, in [0, 1)
+     */
+    void onSpinScrolled(int position, float positionOffset);
+
+}
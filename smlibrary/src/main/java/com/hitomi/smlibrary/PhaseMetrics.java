@@ -0,0 +1,144 @@
+package com.hitomi.smlibrary;
+
+/**
+ * Frame statistics of one interaction phase of the menu <br/>
+ *
+ * A frame duration is the time between two consecutive display frames while the phase lasts.
+ * The instance is reused for every phase, so copy what is needed inside {@link OnSpinMenuMetricsListener#onPhaseMetrics(PhaseMetrics)}
+ */
+public class PhaseMetrics {
+
+    /**
+     * The finger rotates the ring
+     */
+    public static final int PHASE_DRAG = 0;
+
+    /**
+     * The ring keeps rotating by inertia after the finger is lifted
+     */
+    public static final int PHASE_FLING = 1;
+
+    /**
+     * The ring rotates to the nearest slot, or to the clicked menu item
+     */
+    public static final int PHASE_SNAP = 2;
+
+    /**
+     * The menu open animation
+     */
+    public static final int PHASE_OPEN = 3;
+
+    /**
+     * The menu close animation
+     */
+    public static final int PHASE_CLOSE = 4;
+
+    private int phase;
+
+    private int frameCount;
+
+    /**
+     * Frame durations (ns) of the phase, grown as needed and kept for the next phases
+     */
+    private long[] frameDurations = new long[64];
+
+    private long jankThresholdNanos;
+
+    private int jankCount;
+
+    private long durationNanos;
+
+    private long layoutTimeNanos;
+
+    private int layoutCount;
+
+    void reset(int phase, long jankThresholdNanos) {
+        this.phase = phase;
+        this.jankThresholdNanos = jankThresholdNanos;
+        frameCount = 0;
+        jankCount = 0;
+        durationNanos = 0;
+        layoutTimeNanos = 0;
+        layoutCount = 0;
+    }
+
+    void addFrame(long frameDurationNanos) {
+        if (frameCount == frameDurations.length) {
+            long[] grown = new long[frameCount * 2];
+            System.arraycopy(frameDurations, 0, grown, 0, frameCount);
+            frameDurations = grown;
+        }
+        frameDurations[frameCount++] = frameDurationNanos;
+        if (frameDurationNanos > jankThresholdNanos) {
+            jankCount++;
+        }
+    }
+
+    void addLayout(long layoutNanos) {
+        layoutTimeNanos += layoutNanos;
+        layoutCount++;
+    }
+
+    void setDurationNanos(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * @return one of {@link #PHASE_DRAG}, {@link #PHASE_FLING}, {@link #PHASE_SNAP}, {@link #PHASE_OPEN}, {@link #PHASE_CLOSE}
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @param index in [0, {@link #getFrameCount()})
+     * @return duration of the frame in nanoseconds
+     */
+    public long getFrameDurationNanos(int index) {
+        if (index < 0 || index >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame index " + index + " out of " + frameCount + " frames");
+        }
+        return frameDurations[index];
+    }
+
+    public long getMaxFrameDurationNanos() {
+        long max = 0;
+        for (int i = 0; i < frameCount; i++) {
+            max = Math.max(max, frameDurations[i]);
+        }
+        return max;
+    }
+
+    /**
+     * @return number of frames longer than {@link #getJankThresholdNanos()}
+     */
+    public int getJankCount() {
+        return jankCount;
+    }
+
+    public long getJankThresholdNanos() {
+        return jankThresholdNanos;
+    }
+
+    /**
+     * @return wall time of the whole phase in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return total time spent in {@link SpinMenuLayout#onLayout(boolean, int, int, int, int)} during the phase, in nanoseconds
+     */
+    public long getLayoutTimeNanos() {
+        return layoutTimeNanos;
+    }
+
+    public int getLayoutCount() {
+        return layoutCount;
+    }
+}
@@ -1,7 +1,11 @@
 package com.hitomi.smlibrary;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.util.AttributeSet;
+import android.view.View;
 import android.widget.LinearLayout;
 
 /**
@@ -9,6 +13,33 @@ import android.widget.LinearLayout;
  */
 public class SMItemLayout extends LinearLayout{
 
+    /**
+     * Position of a menu item that is not bound to any page
+     */
+    public static final int NO_POSITION = -1;
+
+    private final Paint thumbnailPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * Snapshot cache of the pages, used in thumbnail mode
+     */
+    private ThumbnailCache thumbnailCache;
+
+    /**
+     * Tells whether the page of this menu item can be snapshotted, null when there is no cache
+     */
+    private PageSource pageSource;
+
+    /**
+     * Position of the page shown by this menu item
+     */
+    private int position = NO_POSITION;
+
+    /**
+     * Whether to draw the cached snapshot of the page instead of the live page
+     */
+    private boolean isThumbnailShown;
+
     public SMItemLayout(Context context) {
         this(context, null);
     }
@@ -21,5 +52,74 @@ public class SMItemLayout extends LinearLayout{
         super(context, attrs, defStyleAttr);
 
         setOrientation(VERTICAL);
+        // The page grows out of the menu item while the menu opens or closes, and is drawn over the title
+        setClipChildren(false);
+        setChildrenDrawingOrderEnabled(true);
+    }
+
+    @Override
+    protected int getChildDrawingOrder(int childCount, int i) {
+        // The page container is the first child, draw it last
+        return i == childCount - 1 ? 0 : i + 1;
+    }
+
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        if (isThumbnailShown && SpinMenu.TAG_ITEM_CONTAINER.equals(child.getTag())) {
+            Bitmap thumbnail = thumbnailCache.get(position);
+            if (thumbnail == null && pageSource != null && pageSource.isPageLaidOut(this)) {
+                // Not cached yet, take the snapshot from the live page once. A page not instantiated or
+                // not laid out yet is drawn live instead, a blank snapshot would stay cached
+                thumbnail = thumbnailCache.capture(position, child);
+            }
+            if (thumbnail != null) {
+                canvas.drawBitmap(thumbnail, child.getLeft(), child.getTop(), thumbnailPaint);
+                return false;
+            }
+        }
+        return super.drawChild(canvas, child, drawingTime);
+    }
+
+    void setThumbnailCache(ThumbnailCache cache) {
+        thumbnailCache = cache;
+    }
+
+    void setPageSource(PageSource source) {
+        pageSource = source;
+    }
+
+    void setPosition(int position) {
+        this.position = position;
+    }
+
+    /**
+     * Get the position of the page shown by this menu item
+     * @return the position, or {@link #NO_POSITION} when the menu item is recycled
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Set whether to draw the cached snapshot of the page instead of the live page
+     * @param shown
+     */
+    void setThumbnailShown(boolean shown) {
+        if (isThumbnailShown != shown) {
+            isThumbnailShown = shown && thumbnailCache != null;
+            invalidate();
+        }
+    }
+
+    /**
+     * Provide the state of the page of a menu item
+     */
+    interface PageSource {
+
+        /**
+         * Whether the page shown by the menu item is instantiated and its view has been laid out
+         */
+        boolean isPageLaidOut(SMItemLayout item);
+
     }
 }
@@ -1,23 +1,34 @@
 package com.hitomi.smlibrary;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.database.DataSetObserver;
 import android.graphics.Color;
 import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.IdRes;
 import android.support.v4.view.GestureDetectorCompat;
 import android.support.v4.view.PagerAdapter;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
 import android.view.GestureDetector;
 import android.view.Gravity;
 import android.view.MotionEvent;
+import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import com.hitomi.smcore.LatencyHistogram;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -49,6 +60,12 @@ public class SpinMenu extends FrameLayout {
 
     static final int MENU_STATE_OPENED = 2;
 
+    /**
+     * The id of the Fragment container of a page is this offset plus the page position,
+     * so the Fragments keep their container id however the menu items are recycled
+     */
+    static final int PAGER_ID_OFFSET = 0x6F070000;
+
     /**
      * Left and right menu Item Move the distance of the animation
      */
@@ -59,6 +76,11 @@ public class SpinMenu extends FrameLayout {
      */
     static final int HINT_TOP_MARGIN = 15;
 
+    /**
+     * Time budget (ns) of the page prefetch in each idle slice of the main thread
+     */
+    static final long PREFETCH_BUDGET_NANOS = 4000000L;
+
     /**
      * Rotatable, rotating layout
      */
@@ -85,12 +107,17 @@ public class SpinMenu extends FrameLayout {
     private OnSpinMenuStateChangeListener onSpinMenuStateChangeListener;
 
     /**
-     *Cache a collection of Fragments for use by {@link #pagerAdapter}
+     *Cache the instantiated Fragments for use by {@link #pagerAdapter}, keyed by page position
      */
-    private List pagerObjects;
+    private SparseArray<Object> pagerObjects;
 
     /**
-     * Menu item collection
+     * Fragment container of each menu item, in the same order as {@link #smItemLayoutList}
+     */
+    private List<FrameLayout> pagerLayoutList;
+
+    /**
+     * Menu item collection, the menu items are recycled by {@link SpinMenuLayout} for any number of pages
      */
     private List<SMItemLayout> smItemLayoutList;
 
@@ -119,6 +146,30 @@ public class SpinMenu extends FrameLayout {
      */
     private boolean init = true;
 
+    /**
+     * Whether the pages of the adapter wait for the next measure to be bound,
+     * so that a restored selection is bound directly instead of the default one
+     */
+    private boolean isBindPending;
+
+    /**
+     * Position selected when the pages are bound, see {@link #isBindPending}
+     */
+    private int pendingSelectedPosition;
+
+    /**
+     * Position selected when the state was restored, -1 when nothing was restored. <br/>
+     * The Fragments restored by the activity build their views in its onStart, before this state and therefore
+     * before their container ids are bound, so their views are attached to no container.
+     * Each page around this position is attached again the first time it is instantiated, see {@link #instantiatePage(FrameLayout, int)}
+     */
+    private int restoredPosition = -1;
+
+    /**
+     * Positions around {@link #restoredPosition} whose page was already attached again
+     */
+    private final SparseBooleanArray reattachedPositions = new SparseBooleanArray();
+
     /**
      * Whether to enable gesture recognition
      */
@@ -134,10 +185,204 @@ public class SpinMenu extends FrameLayout {
      */
     private int touchSlop = 8;
 
+    /**
+     * Pages within this number of slots of the center slot are instantiated while the menu is open
+     */
+    private int offscreenPageLimit = 1;
+
+    /**
+     * Whether the menu items outside the center slot show a cached snapshot of their page instead of the live page
+     */
+    private boolean isThumbnailMode;
+
+    /**
+     * Maximum byte count of the page snapshots kept in thumbnail mode
+     */
+    private int thumbnailCacheSize = (int) (Runtime.getRuntime().maxMemory() / 16);
+
+    /**
+     * Page snapshot cache, only created in thumbnail mode
+     */
+    private ThumbnailCache thumbnailCache;
+
+    /**
+     * Paints the menu items outside the center slot in the canvas ring mode, null in the default mode
+     */
+    private CanvasRingRenderer ringRenderer;
+
+    /**
+     * Whether the open and close animations put the animated views on hardware layers
+     */
+    private boolean isHardwareLayerEnabled = true;
+
+    /**
+     * Frames longer than this threshold (ns) are counted as jank in the metrics, one and a half 60 Hz frames by default
+     */
+    private long jankThresholdNanos = 25000000L;
+
+    /**
+     * Records the frames of every interaction phase, only created when a metrics listener is set
+     */
+    private FrameMetricsRecorder metricsRecorder;
+
+    /**
+     * Delays from the drag events to the frames drawing them, only created when latency tracking is enabled
+     */
+    private LatencyHistogram inputLatencyHistogram;
+
+    /**
+     * Releases the snapshots, then the pages away from the selected one, when the system runs low on memory
+     */
+    private ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            trimMemory(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory(TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    };
+
+    /**
+     * Page last made the primary item of the adapter, see {@link #updatePrimaryPage()}
+     */
+    private Object primaryObject;
+
+    /**
+     * Instantiates the pages around the center slot in the idle time of the main thread, once a spin settles
+     */
+    private IdlePrefetcher pagePrefetcher;
+
+    /**
+     * Center position the prefetched pages are gathered around, -1 when there is none
+     */
+    private int prefetchCenterPosition = -1;
+
+    /**
+     * Reusable buffer of the translation of the selected page while the menu is closed
+     */
+    private final float[] closedTranslation = new float[2];
+
     private OnSpinSelectedListener onSpinSelectedListener = new OnSpinSelectedListener() {
         @Override
         public void onSpinSelected(int position) {
-            log("SpinMenu position:" + position);
+            updatePrimaryPage();
+            // Only build the message when it is logged, this runs at the end of every spin
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                log("SpinMenu position:" + position);
+            }
+        }
+    };
+
+    /**
+     * Listener of the landing position of the automatic rotations, set by the user
+     */
+    private OnSpinLandingListener onSpinLandingListener;
+
+    private OnSpinLandingListener spinLandingListener = new OnSpinLandingListener() {
+        @Override
+        public void onSpinLanding(int position) {
+            if (menuState != MENU_STATE_CLOSED && prefetchCenterPosition >= 0) {
+                // The landing page is the selected one now, the prefetch handles it first
+                pagePrefetcher.schedule();
+            }
+            if (onSpinLandingListener != null) {
+                onSpinLandingListener.onSpinLanding(position);
+            }
+        }
+    };
+
+    private SpinMenuLayout.OnCenterPositionChangeListener onCenterPositionChangeListener = new SpinMenuLayout.OnCenterPositionChangeListener() {
+        @Override
+        public void onCenterPositionChanged(int position) {
+            if (menuState != MENU_STATE_CLOSED) {
+                // Instantiating pages is slow, leave it to the idle time once the ring is at rest
+                prefetchCenterPosition = position;
+                pagePrefetcher.schedule();
+            }
+            updateThumbnails(position);
+        }
+    };
+
+    private SMItemLayout.PageSource pageSource = new SMItemLayout.PageSource() {
+        @Override
+        public boolean isPageLaidOut(SMItemLayout item) {
+            if (pagerObjects.get(item.getPosition()) == null) return false;
+            FrameLayout pagerLayout = getPagerLayout(item);
+            if (pagerLayout.getChildCount() == 0) return false;
+            View pageView = pagerLayout.getChildAt(0);
+            return pageView.getWidth() > 0 && pageView.getHeight() > 0 && !pageView.isLayoutRequested();
+        }
+    };
+
+    private SpinMenuLayout.ItemBinder itemBinder = new SpinMenuLayout.ItemBinder() {
+        @Override
+        public void bindItem(SMItemLayout item, int position) {
+            FrameLayout pagerLayout = getPagerLayout(item);
+            int pagerId = PAGER_ID_OFFSET + position;
+            for (FrameLayout otherLayout : pagerLayoutList) {
+                // A menu item unbound without being recycled may still hold the id, the FragmentManager
+                // finds the containers by id and could put the page into it
+                if (otherLayout != pagerLayout && otherLayout.getId() == pagerId) {
+                    otherLayout.setId(View.NO_ID);
+                }
+            }
+            pagerLayout.setId(pagerId);
+
+            bindHint(item, position);
+
+            // The SMItemlayout on both sides of the currently displayed Fragment in the closed menu moves around TRAN_SKNEW_VALUE distance
+            item.setTranslationX(menuState == MENU_STATE_CLOSED ? computeSkewTranslation(position) : 0);
+            item.setThumbnailShown(isThumbnailMode && position != spinMenuLayout.getSelectedPosition());
+
+            if (pagerAdapter == null || pagerObjects.get(position) != null) return;
+            if (menuState == MENU_STATE_CLOSED) {
+                // The selected page covers the whole menu, it is needed right away
+                if (position == spinMenuLayout.getSelectedPosition()) {
+                    pagerAdapter.startUpdate(spinMenuLayout);
+                    instantiatePage(pagerLayout, position);
+                    pagerAdapter.finishUpdate(spinMenuLayout);
+                    updatePrimaryPage();
+                }
+            } else if (prefetchCenterPosition >= 0) {
+                pagePrefetcher.schedule();
+            }
+        }
+
+        @Override
+        public void recycleItem(SMItemLayout item, int position) {
+            // The page rotated out of the ring, release it
+            FrameLayout pagerLayout = getPagerLayout(item);
+            Object object = pagerObjects.get(position);
+            if (pagerAdapter != null && object != null) {
+                if (ringRenderer != null && thumbnailCache.get(position) == null && pageSource.isPageLaidOut(item)) {
+                    // The page is painted from its snapshot once out of the center slot
+                    thumbnailCache.capture(position, item.findViewWithTag(TAG_ITEM_CONTAINER));
+                }
+                pagerAdapter.startUpdate(spinMenuLayout);
+                pagerAdapter.destroyItem(pagerLayout, position, object);
+                if (object == primaryObject) primaryObject = null;
+                pagerAdapter.finishUpdate(spinMenuLayout);
+                pagerObjects.remove(position);
+            }
+            // The position may be bound to another menu item while this one waits in the pool
+            pagerLayout.setId(View.NO_ID);
+        }
+    };
+
+    /**
+     * Applies the changes of the data set of {@link #pagerAdapter} when it is notified
+     */
+    private DataSetObserver pagerObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            dataSetChanged();
         }
     };
 
@@ -177,9 +422,22 @@ public class SpinMenu extends FrameLayout {
         hintTextColor = typedArray.getColor(R.styleable.SpinMenu_hint_text_color, hintTextColor);
         typedArray.recycle();
 
-        pagerObjects = new ArrayList();
+        pagerObjects = new SparseArray<>();
+        pagerLayoutList = new ArrayList<>();
         smItemLayoutList = new ArrayList<>();
         menuDetector = new GestureDetectorCompat(context, menuGestureListener);
+        pagePrefetcher = new IdlePrefetcher(new IdlePrefetcher.Task() {
+            @Override
+            public boolean runStep() {
+                return prefetchStep();
+            }
+
+            @Override
+            public boolean isDeferred() {
+                // A page can take longer than a frame to instantiate, wait until the ring is at rest
+                return spinMenuLayout.isSpinning();
+            }
+        }, PREFETCH_BUDGET_NANOS);
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.DONUT) {
             ViewConfiguration conf = ViewConfiguration.get(getContext());
@@ -197,74 +455,141 @@ public class SpinMenu extends FrameLayout {
         spinMenuLayout.setId(smLayoutId);
         spinMenuLayout.setLayoutParams(layoutParams);
         spinMenuLayout.setOnSpinSelectedListener(onSpinSelectedListener);
+        spinMenuLayout.setOnSpinLandingListener(spinLandingListener);
         spinMenuLayout.setOnMenuSelectedListener(onMenuSelectedListener);
+        spinMenuLayout.setOnCenterPositionChangeListener(onCenterPositionChangeListener);
+        spinMenuLayout.setItemBinder(itemBinder);
+        // The menu starts closed, only the selected page is shown
+        spinMenuLayout.setSelectedItemOnly(true);
         addView(spinMenuLayout);
     }
 
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (isBindPending) {
+            // The saved state is restored by now, only the restored selection is instantiated
+            isBindPending = false;
+            spinMenuLayout.setMenuItemCount(pagerAdapter.getCount(), pendingSelectedPosition);
+        }
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
 
         if (init && smItemLayoutList.size() > 0) {
-            // Adjust the overall size of the item view in the menu according to scaleRatio
-            int pagerWidth = (int) (getMeasuredWidth() * scaleRatio);
-            int pagerHeight = (int) (getMeasuredHeight() * scaleRatio);
-            SMItemLayout.LayoutParams containerLayoutParams = new SMItemLayout.LayoutParams(pagerWidth, pagerHeight);
             SMItemLayout smItemLayout;
-            FrameLayout frameContainer;
-            TextView tvHint;
             for (int i = 0; i < smItemLayoutList.size(); i++) {
                 smItemLayout = smItemLayoutList.get(i);
-                frameContainer = (FrameLayout) smItemLayout.findViewWithTag(TAG_ITEM_CONTAINER);
-                frameContainer.setLayoutParams(containerLayoutParams);
-                if (i == 0) { // When the initial menu is displayed, the first Fragment is displayed by default.
-                    FrameLayout pagerLayout = (FrameLayout) smItemLayout.findViewWithTag(TAG_ITEM_PAGER);
-                    // First remove the first layout that contains Fragment
-                    frameContainer.removeView(pagerLayout);
-
-                    // Create a FrameLayout for placeholders
-                    FrameLayout holderLayout = new FrameLayout(getContext());
-                    LinearLayout.LayoutParams pagerLinLayParams = new LinearLayout.LayoutParams(MATCH_PARENT, MATCH_PARENT);
-                    holderLayout.setLayoutParams(pagerLinLayParams);
-
-                    // Add a placeholder FrameLayout to the frameContainer in the layout
-                    frameContainer.addView(holderLayout, 0);
-
-                    // Add the first layout containing the Fragment to the SpinMenu
-                    FrameLayout.LayoutParams pagerFrameParams = new FrameLayout.LayoutParams(MATCH_PARENT, MATCH_PARENT);
-                    pagerLayout.setLayoutParams(pagerFrameParams);
-                    addView(pagerLayout);
-                }
-
-                // Show title
-                if (hintStrList != null && !hintStrList.isEmpty() && i < hintStrList.size()) {
-                    tvHint = (TextView) smItemLayout.findViewWithTag(TAG_ITEM_HINT);
-                    tvHint.setText(hintStrList.get(i));
-                    tvHint.setTextSize(hintTextSize);
-                    tvHint.setTextColor(hintTextColor);
-                }
-
-                // The SMItemlayout on both sides of the currently displayed Fragment in the menu moves around TRAN_SKNEW_VALUE distance
-                if (spinMenuLayout.getSelectedPosition() + 1 == i
-                        || (spinMenuLayout.isCyclic()
-                            && spinMenuLayout.getMenuItemCount() - i == spinMenuLayout.getSelectedPosition() + 1)) { // Right ItemMenu
-                    smItemLayout.setTranslationX(TRAN_SKNEW_VALUE);
-                } else if (spinMenuLayout.getSelectedPosition() - 1 == i
-                        || (spinMenuLayout.isCyclic()
-                            && spinMenuLayout.getMenuItemCount() - i == 1)) { // Left ItemMenu
-                    smItemLayout.setTranslationX(-TRAN_SKNEW_VALUE);
-                } else {
-                    smItemLayout.setTranslationX(0);
+                applyItemSize(smItemLayout, pagerLayoutList.get(i));
+                if (smItemLayout.getPosition() != SMItemLayout.NO_POSITION) {
+                    // The titles may have been set after the adapter
+                    bindHint(smItemLayout, smItemLayout.getPosition());
                 }
             }
             spinMenuAnimator = new SpinMenuAnimator(this, spinMenuLayout, onSpinMenuStateChangeListener);
+            spinMenuAnimator.setHardwareLayerEnabled(isHardwareLayerEnabled);
+            spinMenuAnimator.setMetricsRecorder(metricsRecorder);
             init = false;
         }
+
+        if (menuState == MENU_STATE_CLOSED || menuState == MENU_STATE_OPENED) {
+            applyPagerTransforms();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getContext().getApplicationContext().registerComponentCallbacks(memoryCallbacks);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        pagePrefetcher.cancel();
+        getContext().getApplicationContext().unregisterComponentCallbacks(memoryCallbacks);
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Release memory according to the trim level: the page snapshots as soon as memory runs low,
+     * then the pages that are neither selected nor adjacent to it. The released pages and snapshots
+     * are built again when they are needed
+     * @param level a ComponentCallbacks2 trim level
+     */
+    void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW && thumbnailCache != null) {
+            thumbnailCache.invalidateAll();
+            spinMenuLayout.invalidate();
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL && pagerAdapter != null) {
+            // Do not build the released pages again right away
+            pagePrefetcher.cancel();
+            pagerAdapter.startUpdate(spinMenuLayout);
+            destroyDistantPages(spinMenuLayout.getSelectedPosition(), 1);
+            pagerAdapter.finishUpdate(spinMenuLayout);
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (thumbnailCache != null) {
+            thumbnailCache.invalidateAll();
+        }
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+        savedState.selectedPosition = isBindPending ? pendingSelectedPosition : spinMenuLayout.getSelectedPosition();
+        // An animation in flight is saved as the state it was going to
+        savedState.menuState = menuState == MENU_STATE_OPEN || menuState == MENU_STATE_OPENED
+                ? MENU_STATE_OPENED : MENU_STATE_CLOSED;
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+
+        boolean isOpened = savedState.menuState == MENU_STATE_OPENED;
+        menuState = isOpened ? MENU_STATE_OPENED : MENU_STATE_CLOSED;
+        spinMenuLayout.setSelectedItemOnly(!isOpened);
+        spinMenuLayout.postEnable(isOpened);
+
+        restoredPosition = savedState.selectedPosition;
+        reattachedPositions.clear();
+        if (pagerAdapter == null || isBindPending) {
+            // Bound on the next measure, see onMeasure
+            pendingSelectedPosition = savedState.selectedPosition;
+        } else {
+            spinMenuLayout.setSelection(savedState.selectedPosition);
+            if (!isOpened) {
+                // Only the restored page is kept while the menu is closed, the others are not created
+                trimPages(0);
+            }
+            updatePrimaryPage();
+            requestLayout();
+        }
     }
 
     @Override
     public boolean dispatchTouchEvent(MotionEvent ev) {
         if (enableGesture) menuDetector.onTouchEvent(ev);
+        if (menuState == MENU_STATE_CLOSED) {
+            // The selected page covers the whole menu without any scale, so it takes the touches in the menu coordinates
+            SMItemLayout selectItemLayout = spinMenuLayout.findItemByPosition(spinMenuLayout.getSelectedPosition());
+            if (selectItemLayout != null && getPagerLayout(selectItemLayout).dispatchTouchEvent(ev)) {
+                return true;
+            }
+        }
         return super.dispatchTouchEvent(ev);
     }
 
@@ -288,107 +613,730 @@ public class SpinMenu extends FrameLayout {
         return (int) (pxValue / fontScale + 0.5f);
     }
 
+    /**
+     * Convert from sp to px by phone resolution
+     * @param spValue
+     * @return
+     */
+    private float sp2Px(float spValue) {
+        return spValue * getContext().getResources().getDisplayMetrics().scaledDensity;
+    }
+
     private void log(String log) {
         Log.d(TAG, log);
     }
 
-    public void setFragmentAdapter(PagerAdapter adapter) {
-        if (pagerAdapter != null) {
-            pagerAdapter.startUpdate(spinMenuLayout);
-            for (int i = 0; i < adapter.getCount(); i++) {
-                ViewGroup pager = (ViewGroup) spinMenuLayout.getChildAt(i).findViewWithTag(TAG_ITEM_PAGER);
-                pagerAdapter.destroyItem(pager, i, pagerObjects.get(i));
+    /**
+     * Instantiate the pages within {@link #offscreenPageLimit} slots of the center position,
+     * and destroy the other pages except the selected one
+     * @param centerPosition
+     */
+    private void populatePages(int centerPosition) {
+        if (pagerAdapter == null || centerPosition < 0) return;
+
+        prefetchCenterPosition = centerPosition;
+        pagerAdapter.startUpdate(spinMenuLayout);
+        destroyDistantPages(centerPosition, offscreenPageLimit);
+        int index;
+        while ((index = findPageToInstantiate(centerPosition)) >= 0) {
+            instantiatePage(index);
+        }
+        pagerAdapter.finishUpdate(spinMenuLayout);
+        updatePrimaryPage();
+    }
+
+    /**
+     * Destroy the pages more than the given number of slots away from the selected position, and instantiate
+     * the selected page if it is missing. No other page is instantiated
+     * @param limit
+     */
+    private void trimPages(int limit) {
+        if (pagerAdapter == null) return;
+        int selPos = spinMenuLayout.getSelectedPosition();
+        pagerAdapter.startUpdate(spinMenuLayout);
+        destroyDistantPages(selPos, limit);
+        SMItemLayout item = spinMenuLayout.findItemByPosition(selPos);
+        if (item != null && pagerObjects.get(selPos) == null) {
+            instantiatePage(smItemLayoutList.indexOf(item));
+        }
+        pagerAdapter.finishUpdate(spinMenuLayout);
+        updatePrimaryPage();
+    }
+
+    /**
+     * One step of the idle prefetch: release the pages that rotated away first, to free their memory,
+     * then instantiate the most wanted missing page
+     * @return true if there may be pages left to prefetch
+     */
+    private boolean prefetchStep() {
+        if (pagerAdapter == null || prefetchCenterPosition < 0
+                || (menuState != MENU_STATE_OPEN && menuState != MENU_STATE_OPENED)) {
+            return false;
+        }
+        pagerAdapter.startUpdate(spinMenuLayout);
+        boolean isDestroyed = destroyDistantPages(prefetchCenterPosition, offscreenPageLimit);
+        int index = isDestroyed ? -1 : findPageToInstantiate(prefetchCenterPosition);
+        if (index >= 0) {
+            instantiatePage(index);
+        }
+        pagerAdapter.finishUpdate(spinMenuLayout);
+        // The spin may have settled before its page was ready
+        updatePrimaryPage();
+        return isDestroyed || index >= 0;
+    }
+
+    /**
+     * Make the page resting in the center slot the primary item of the adapter. <br/>
+     * With the Fragment adapters only the primary page has its menu and user visible hint set, the pages
+     * in the side slots are told they are not visible but stay resumed. The side pages are destroyed when
+     * the menu closes, see {@link #updateMenuState(int)}. Nothing changes while the ring is spinning
+     */
+    private void updatePrimaryPage() {
+        if (pagerAdapter == null || spinMenuLayout.isSpinning()) return;
+        int selPos = spinMenuLayout.getSelectedPosition();
+        Object object = pagerObjects.get(selPos);
+        if (object == null || object == primaryObject) return;
+
+        SMItemLayout item = spinMenuLayout.findItemByPosition(selPos);
+        pagerAdapter.startUpdate(spinMenuLayout);
+        pagerAdapter.setPrimaryItem(item != null ? getPagerLayout(item) : spinMenuLayout, selPos, object);
+        pagerAdapter.finishUpdate(spinMenuLayout);
+        primaryObject = object;
+    }
+
+    /**
+     * Destroy the pages more than the given number of slots away from the center position, except the selected one.
+     * Must be called inside an update of the adapter
+     * @param centerPosition
+     * @param limit
+     * @return true if a page was destroyed
+     */
+    private boolean destroyDistantPages(int centerPosition, int limit) {
+        int selPos = spinMenuLayout.getSelectedPosition();
+        boolean isDestroyed = false;
+        for (int i = pagerObjects.size() - 1; i >= 0; i--) {
+            int position = pagerObjects.keyAt(i);
+            if (position != selPos && spinMenuLayout.getSlotDistance(position, centerPosition) > limit) {
+                SMItemLayout item = spinMenuLayout.findItemByPosition(position);
+                Object object = pagerObjects.valueAt(i);
+                pagerAdapter.destroyItem(item != null ? getPagerLayout(item) : spinMenuLayout, position, object);
+                if (object == primaryObject) primaryObject = null;
+                pagerObjects.removeAt(i);
+                isDestroyed = true;
             }
-            pagerAdapter.finishUpdate(spinMenuLayout);
         }
+        return isDestroyed;
+    }
 
-        int pagerCount = adapter.getCount();
-        if (pagerCount > spinMenuLayout.getMaxMenuItemCount())
-            throw new RuntimeException(String.format("Fragment number can't be more than %d", spinMenuLayout.getMaxMenuItemCount()));
+    /**
+     * Find the bound menu item whose page is missing and most likely to be shown next: the selected position,
+     * which is where a spin lands, then the closest one to the center position within {@link #offscreenPageLimit} slots
+     * @param centerPosition
+     * @return the index of the menu item, -1 when no page is missing
+     */
+    private int findPageToInstantiate(int centerPosition) {
+        int selPos = spinMenuLayout.getSelectedPosition();
+        int found = -1, foundDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < smItemLayoutList.size(); i++) {
+            int position = smItemLayoutList.get(i).getPosition();
+            if (position == SMItemLayout.NO_POSITION || pagerObjects.get(position) != null) continue;
+            if (position == selPos) return i;
+            int distance = spinMenuLayout.getSlotDistance(position, centerPosition);
+            if (distance <= offscreenPageLimit && distance < foundDistance) {
+                found = i;
+                foundDistance = distance;
+            }
+        }
+        return found;
+    }
 
-        pagerAdapter = adapter;
+    /**
+     * Instantiate the page of a bound menu item. Must be called inside an update of the adapter
+     * @param index index of the menu item
+     */
+    private void instantiatePage(int index) {
+        instantiatePage(pagerLayoutList.get(index), smItemLayoutList.get(index).getPosition());
+    }
+
+    /**
+     * Instantiate a page into its container. A page that may have been restored without a container is destroyed
+     * and instantiated again once, now that its container id is bound. Must be called inside an update of the adapter
+     * @param pagerLayout
+     * @param position
+     */
+    private void instantiatePage(FrameLayout pagerLayout, int position) {
+        Object object = pagerAdapter.instantiateItem(pagerLayout, position);
+        if (restoredPosition >= 0 && !reattachedPositions.get(position)
+                && spinMenuLayout.getSlotDistance(position, restoredPosition) <= offscreenPageLimit) {
+            reattachedPositions.put(position, true);
+            pagerAdapter.destroyItem(pagerLayout, position, object);
+            object = pagerAdapter.instantiateItem(pagerLayout, position);
+        }
+        pagerObjects.put(position, object);
+    }
+
+    /**
+     * Show the live page only in the center slot, and the cached snapshots in the other slots when in thumbnail mode
+     * @param centerPosition
+     */
+    private void updateThumbnails(int centerPosition) {
+        for (int i = 0; i < smItemLayoutList.size(); i++) {
+            SMItemLayout item = smItemLayoutList.get(i);
+            item.setThumbnailShown(isThumbnailMode && item.getPosition() != centerPosition);
+        }
+    }
+
+    /**
+     * Put every page at rest into its place: the selected page covers the whole menu while the menu is closed,
+     * the other pages are scaled down into their menu item container
+     */
+    private void applyPagerTransforms() {
+        int selPos = spinMenuLayout.getSelectedPosition();
+        for (int i = 0; i < smItemLayoutList.size(); i++) {
+            FrameLayout pagerLayout = pagerLayoutList.get(i);
+            if (menuState == MENU_STATE_CLOSED && smItemLayoutList.get(i).getPosition() == selPos) {
+                computeClosedPagerTranslation(pagerLayout, closedTranslation);
+                pagerLayout.setScaleX(1.f);
+                pagerLayout.setScaleY(1.f);
+                pagerLayout.setTranslationX(closedTranslation[0]);
+                pagerLayout.setTranslationY(closedTranslation[1]);
+            } else {
+                pagerLayout.setScaleX(scaleRatio);
+                pagerLayout.setScaleY(scaleRatio);
+                pagerLayout.setTranslationX(getOpenedPagerTranslationX());
+                pagerLayout.setTranslationY(getOpenedPagerTranslationY());
+            }
+        }
+    }
+
+    /**
+     * Get the translationX that puts a page scaled by scaleRatio around its center at the left of its menu item container
+     * @return
+     */
+    float getOpenedPagerTranslationX() {
+        return -(1 - scaleRatio) * getWidth() / 2;
+    }
+
+    /**
+     * Get the translationY that puts a page scaled by scaleRatio around its center at the top of its menu item container
+     * @return
+     */
+    float getOpenedPagerTranslationY() {
+        return -(1 - scaleRatio) * getHeight() / 2;
+    }
+
+    /**
+     * Calculate the translation that moves an unscaled page from its menu item container onto the whole menu,
+     * by mapping the origin of the container through the transforms of its parents up to this view
+     * @param pagerLayout
+     * @param outTranslation receives the translationX and translationY
+     */
+    void computeClosedPagerTranslation(View pagerLayout, float[] outTranslation) {
+        outTranslation[0] = 0;
+        outTranslation[1] = 0;
+        ViewParent parent = pagerLayout.getParent();
+        while (parent instanceof View && parent != this) {
+            View view = (View) parent;
+            if (view == spinMenuLayout) {
+                spinMenuLayout.mapRingPoints(outTranslation);
+            }
+            view.getMatrix().mapPoints(outTranslation);
+            outTranslation[0] += view.getLeft();
+            outTranslation[1] += view.getTop();
+            parent = view.getParent();
+        }
+        outTranslation[0] = -outTranslation[0];
+        outTranslation[1] = -outTranslation[1];
+    }
+
+    /**
+     * Get the Fragment container of a menu item
+     * @param item
+     * @return
+     */
+    private FrameLayout getPagerLayout(SMItemLayout item) {
+        return pagerLayoutList.get(smItemLayoutList.indexOf(item));
+    }
+
+    /**
+     * Calculate the translationX of a menu item while the menu is closed,
+     * the menu items on both sides of the selected one are moved aside by TRAN_SKNEW_VALUE
+     * @param position
+     * @return
+     */
+    private float computeSkewTranslation(int position) {
+        int selPos = spinMenuLayout.getSelectedPosition();
+        int count = spinMenuLayout.getMenuItemCount();
+        if (position == selPos + 1
+                || (spinMenuLayout.isCyclic() && position == (selPos + 1) % count)) { // Right ItemMenu
+            return TRAN_SKNEW_VALUE;
+        } else if (position == selPos - 1
+                || (spinMenuLayout.isCyclic() && position == (selPos - 1 + count) % count)) { // Left ItemMenu
+            return -TRAN_SKNEW_VALUE;
+        }
+        return 0;
+    }
+
+    /**
+     * Show the title of the page on the menu item
+     * @param item
+     * @param position
+     */
+    private void bindHint(SMItemLayout item, int position) {
+        TextView tvHint = (TextView) item.findViewWithTag(TAG_ITEM_HINT);
+        if (hintStrList != null && position < hintStrList.size()) {
+            tvHint.setText(hintStrList.get(position));
+            tvHint.setTextSize(hintTextSize);
+            tvHint.setTextColor(hintTextColor);
+        } else {
+            tvHint.setText(null);
+        }
+    }
+
+    /**
+     * Adjust the overall size of a menu item according to scaleRatio
+     * @param smItemLayout
+     * @param framePager
+     */
+    private void applyItemSize(SMItemLayout smItemLayout, FrameLayout framePager) {
+        int pagerWidth = (int) (getMeasuredWidth() * scaleRatio);
+        int pagerHeight = (int) (getMeasuredHeight() * scaleRatio);
+        FrameLayout frameContainer = (FrameLayout) smItemLayout.findViewWithTag(TAG_ITEM_CONTAINER);
+        frameContainer.setLayoutParams(new SMItemLayout.LayoutParams(pagerWidth, pagerHeight));
+        // The pages are laid out at the size of the whole menu, and scaled down into their menu item container
+        framePager.setLayoutParams(new FrameLayout.LayoutParams(getMeasuredWidth(), getMeasuredHeight()));
+        if (ringRenderer != null) {
+            ringRenderer.setContainerSize(pagerWidth, pagerHeight);
+        }
+    }
+
+    /**
+     * Create the missing menu items, only the menu items inside the bound arc of the ring need a view,
+     * they are recycled for the other pages
+     * @param pagerCount
+     */
+    private void ensureItemLayouts(int pagerCount) {
+        int maxItemCount = spinMenuLayout.getMaxBoundItemCount();
+        int itemCount = Math.min(pagerCount, maxItemCount);
+        if (smItemLayoutList.size() >= itemCount) return;
 
         SMItemLayout.LayoutParams itemLinLayParams = new SMItemLayout.LayoutParams(WRAP_CONTENT, WRAP_CONTENT);
         LinearLayout.LayoutParams containerLinlayParams = new LinearLayout.LayoutParams(MATCH_PARENT, MATCH_PARENT);
         FrameLayout.LayoutParams pagerFrameParams = new FrameLayout.LayoutParams(MATCH_PARENT, MATCH_PARENT);
         LinearLayout.LayoutParams hintLinLayParams = new LinearLayout.LayoutParams(WRAP_CONTENT, WRAP_CONTENT);
         hintLinLayParams.topMargin = HINT_TOP_MARGIN;
-        pagerAdapter.startUpdate(spinMenuLayout);
-        for (int i = 0; i < pagerCount; i++) {
+        for (int i = smItemLayoutList.size(); i < itemCount; i++) {
             // Create menu parent container layout
             SMItemLayout smItemLayout = new SMItemLayout(getContext());
             smItemLayout.setId(i + 1);
             smItemLayout.setGravity(Gravity.CENTER);
             smItemLayout.setLayoutParams(itemLinLayParams);
+            smItemLayout.setThumbnailCache(thumbnailCache);
+            smItemLayout.setPageSource(pageSource);
 
             // Create a package FrameLayout
             FrameLayout frameContainer = new FrameLayout(getContext());
-            frameContainer.setId(pagerCount + i + 1);
+            frameContainer.setId(maxItemCount + i + 1);
             frameContainer.setTag(TAG_ITEM_CONTAINER);
             frameContainer.setLayoutParams(containerLinlayParams);
+            frameContainer.setClipChildren(false);
 
-            // Create a Fragment container
+            // Create a Fragment container, its id is assigned when the menu item is bound to a page
             FrameLayout framePager = new FrameLayout(getContext());
-            framePager.setId(pagerCount * 2 + i + 1);
             framePager.setTag(TAG_ITEM_PAGER);
             framePager.setLayoutParams(pagerFrameParams);
-            Object object = pagerAdapter.instantiateItem(framePager, i);
 
             // Create a menu title TextView
             TextView tvHint = new TextView(getContext());
-            tvHint.setId(pagerCount * 3 + i + 1);
+            tvHint.setId(maxItemCount * 2 + i + 1);
             tvHint.setTag(TAG_ITEM_HINT);
             tvHint.setLayoutParams(hintLinLayParams);
 
             frameContainer.addView(framePager);
             smItemLayout.addView(frameContainer);
             smItemLayout.addView(tvHint);
+            if (!init) {
+                // Created after the first layout, size it right away
+                applyItemSize(smItemLayout, framePager);
+            }
             spinMenuLayout.addView(smItemLayout);
 
-            pagerObjects.add(object);
+            pagerLayoutList.add(framePager);
             smItemLayoutList.add(smItemLayout);
         }
+    }
+
+    /**
+     * Set the adapter of the pages. Setting another adapter releases the pages of the previous one and reuses the menu items. <br/>
+     * Later changes of the data set are applied incrementally on {@link PagerAdapter#notifyDataSetChanged()}
+     * @param adapter
+     */
+    public void setFragmentAdapter(PagerAdapter adapter) {
+        pagePrefetcher.cancel();
+        if (pagerAdapter != null) {
+            pagerAdapter.unregisterDataSetObserver(pagerObserver);
+            pagerAdapter.startUpdate(spinMenuLayout);
+            for (int i = 0; i < pagerObjects.size(); i++) {
+                pagerAdapter.destroyItem(spinMenuLayout, pagerObjects.keyAt(i), pagerObjects.valueAt(i));
+            }
+            pagerAdapter.finishUpdate(spinMenuLayout);
+            pagerObjects.clear();
+            primaryObject = null;
+            // The restored Fragments belonged to the previous adapter
+            restoredPosition = -1;
+            if (thumbnailCache != null) {
+                thumbnailCache.invalidateAll();
+            }
+        }
+
+        int pagerCount = adapter.getCount();
+        pagerAdapter = adapter;
+        pagerAdapter.registerDataSetObserver(pagerObserver);
+
+        ensureItemLayouts(pagerCount);
+        if (init) {
+            // Not laid out yet, the pages are bound on the first measure, after the saved state is restored
+            isBindPending = true;
+            requestLayout();
+        } else {
+            // Bind the pages around the selected one, only the selected page is instantiated eagerly
+            spinMenuLayout.setMenuItemCount(pagerCount, spinMenuLayout.getSelectedPosition());
+        }
+    }
+
+    /**
+     * Apply the changes of the data set of the adapter. <br/>
+     * Like ViewPager, the instantiated pages are looked up with {@link PagerAdapter#getItemPosition(Object)}:
+     * unchanged pages keep their menu item and Fragment, moved pages follow their new position,
+     * and only the removed pages are destroyed. Pages without an instance are simply bound by position
+     */
+    private void dataSetChanged() {
+        int count = pagerAdapter.getCount();
+        int oldCount = spinMenuLayout.getMenuItemCount();
+        // The menu items not showing an instantiated page keep their position while it exists
+        int[] newPositions = new int[oldCount];
+        for (int position = 0; position < oldCount; position++) {
+            newPositions[position] = position < count ? position : SMItemLayout.NO_POSITION;
+        }
+
+        boolean isPositionChanged = false;
+        boolean[] isMoved = new boolean[oldCount];
+        SparseArray<Object> movedObjects = new SparseArray<>();
+        pagerAdapter.startUpdate(spinMenuLayout);
+        for (int i = pagerObjects.size() - 1; i >= 0; i--) {
+            int position = pagerObjects.keyAt(i);
+            Object object = pagerObjects.valueAt(i);
+            int newPosition = pagerAdapter.getItemPosition(object);
+            if (newPosition == PagerAdapter.POSITION_UNCHANGED) {
+                newPosition = position < count ? position : PagerAdapter.POSITION_NONE;
+            }
+            if (newPosition == position) continue;
+
+            isPositionChanged = true;
+            pagerObjects.removeAt(i);
+            if (newPosition == PagerAdapter.POSITION_NONE || newPosition >= count) {
+                SMItemLayout item = spinMenuLayout.findItemByPosition(position);
+                pagerAdapter.destroyItem(item != null ? getPagerLayout(item) : spinMenuLayout, position, object);
+                if (object == primaryObject) primaryObject = null;
+                newPosition = SMItemLayout.NO_POSITION;
+            } else {
+                movedObjects.put(newPosition, object);
+            }
+            if (position < oldCount) {
+                newPositions[position] = newPosition;
+                isMoved[position] = true;
+            }
+        }
+        for (int i = 0; i < movedObjects.size(); i++) {
+            pagerObjects.put(movedObjects.keyAt(i), movedObjects.valueAt(i));
+        }
+        // A moved page takes over the menu item of its new position, the menu item that showed
+        // this position without an instance is bound again
+        for (int position = 0; position < oldCount; position++) {
+            if (!isMoved[position] && newPositions[position] != SMItemLayout.NO_POSITION
+                    && movedObjects.get(newPositions[position]) != null) {
+                newPositions[position] = SMItemLayout.NO_POSITION;
+            }
+        }
         pagerAdapter.finishUpdate(spinMenuLayout);
+
+        if (isPositionChanged && thumbnailCache != null) {
+            // The snapshots are kept by position
+            thumbnailCache.invalidateAll();
+        }
+        ensureItemLayouts(count);
+        spinMenuLayout.updateMenuItems(count, newPositions);
+        if (menuState == MENU_STATE_CLOSED || menuState == MENU_STATE_OPENED) {
+            applyPagerTransforms();
+        }
+        updatePrimaryPage();
     }
 
+    /**
+     * Open the menu. A close animation in flight is reversed from where it is
+     */
     public void openMenu() {
-        if (menuState == MENU_STATE_CLOSED) {
+        if (menuState == MENU_STATE_CLOSED || menuState == MENU_STATE_CLOSE) {
+            populatePages(spinMenuLayout.getSelectedPosition());
+            updateThumbnails(spinMenuLayout.getSelectedPosition());
             spinMenuAnimator.openMenuAnimator();
         }
     }
 
+    /**
+     * Close the menu on the chosen menu item. An open animation in flight is reversed from where it is,
+     * back onto the page it was opening
+     * @param chooseItemLayout
+     */
     public void closeMenu(SMItemLayout chooseItemLayout) {
-        if (menuState == MENU_STATE_OPENED) {
+        if (menuState == MENU_STATE_OPENED || menuState == MENU_STATE_OPEN) {
             spinMenuAnimator.closeMenuAnimator(chooseItemLayout);
         }
     }
 
+    /**
+     * Close the menu on the menu item in the center slot
+     */
+    public void closeMenu() {
+        closeMenu(spinMenuLayout.findItemByPosition(spinMenuLayout.getSelectedPosition()));
+    }
+
     public int getMenuState() {
         return menuState;
     }
 
     public void updateMenuState(int state) {
         menuState = state;
+        if (menuState == MENU_STATE_CLOSED) {
+            // Only the selected page is shown while the menu is closed. The support library has no setMaxLifecycle
+            // to pause the others, so they are destroyed (detached by the Fragment adapters), which stops them
+            trimPages(0);
+        }
     }
 
     public void setEnableGesture(boolean enable) {
         enableGesture = enable;
     }
 
+    /**
+     * Set whether the ring rotates as one transform instead of re-laying-out every menu item per frame
+     * @param rigidRotation
+     */
+    public void setRigidRotation(boolean rigidRotation) {
+        spinMenuLayout.setRigidRotation(rigidRotation);
+    }
+
+    /**
+     * Set the number of slots on each side of the center slot whose pages are instantiated while the menu is open. <br/>
+     * The pages beyond this limit are destroyed, except the selected one. The pages in the side slots are not paused:
+     * they stay resumed while the menu is open, only their user visible hint is false. They are destroyed when
+     * the menu closes, which stops them, and instantiated again when it opens
+     * @param limit
+     */
+    public void setOffscreenPageLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Offscreen page limit can't be less than 0");
+        }
+        offscreenPageLimit = limit;
+    }
+
+    public int getOffscreenPageLimit() {
+        return offscreenPageLimit;
+    }
+
+    /**
+     * Set whether the menu items outside the center slot draw a cached snapshot of their page
+     * instead of the live page, which keeps the draw cost of a spin low. The center item always stays live
+     * @param thumbnailMode
+     */
+    public void setThumbnailMode(boolean thumbnailMode) {
+        isThumbnailMode = thumbnailMode;
+        if (isThumbnailMode && thumbnailCache == null) {
+            setThumbnailCache(new ThumbnailCache(thumbnailCacheSize));
+        } else if (!isThumbnailMode && thumbnailCache != null && ringRenderer == null) {
+            thumbnailCache.invalidateAll();
+            setThumbnailCache(null);
+        }
+        for (SMItemLayout smItemLayout : smItemLayoutList) {
+            smItemLayout.setThumbnailShown(false);
+        }
+        updateThumbnails(spinMenuLayout.getSelectedPosition());
+    }
+
+    /**
+     * Set the maximum byte count of the page snapshots kept in thumbnail mode
+     * @param maxBytes
+     */
+    public void setThumbnailCacheSize(int maxBytes) {
+        thumbnailCacheSize = maxBytes;
+        if (thumbnailCache != null) {
+            thumbnailCache.invalidateAll();
+            setThumbnailCache(new ThumbnailCache(thumbnailCacheSize));
+        }
+    }
+
+    private void setThumbnailCache(ThumbnailCache cache) {
+        thumbnailCache = cache;
+        for (SMItemLayout smItemLayout : smItemLayoutList) {
+            smItemLayout.setThumbnailCache(thumbnailCache);
+        }
+        if (ringRenderer != null) {
+            ringRenderer.setThumbnailCache(thumbnailCache);
+        }
+    }
+
+    /**
+     * Set whether the ring is rendered on one canvas: only the menu item in the center slot keeps its views
+     * and live page, the other menu items are painted from the snapshot their page left when it was in the
+     * center slot, with their title, and are hit-tested by angle. A ring of any size then adds a single menu item
+     * to the view hierarchy. <br/>
+     * Must be set before {@link #setFragmentAdapter(PagerAdapter)}
+     * @param canvasRingMode
+     */
+    public void setCanvasRingMode(boolean canvasRingMode) {
+        if (pagerAdapter != null) {
+            throw new IllegalStateException("Canvas ring mode must be set before the adapter");
+        }
+        if (canvasRingMode == (ringRenderer != null)) return;
+        if (canvasRingMode) {
+            ringRenderer = new CanvasRingRenderer();
+            ringRenderer.setLabels(hintStrList);
+            ringRenderer.setLabelStyle(sp2Px(hintTextSize), hintTextColor);
+            if (thumbnailCache == null) {
+                setThumbnailCache(new ThumbnailCache(thumbnailCacheSize));
+            } else {
+                ringRenderer.setThumbnailCache(thumbnailCache);
+            }
+        } else {
+            ringRenderer = null;
+            if (!isThumbnailMode) {
+                thumbnailCache.invalidateAll();
+                setThumbnailCache(null);
+            }
+        }
+        spinMenuLayout.setRingRenderer(ringRenderer);
+    }
+
+    /**
+     * Drop the cached snapshot of a page, call it when the content of the page changed.
+     * A new snapshot is taken the next time the page is shown as a thumbnail
+     * @param position
+     */
+    public void invalidateThumbnail(int position) {
+        if (thumbnailCache == null) return;
+        thumbnailCache.invalidate(position);
+        SMItemLayout item = spinMenuLayout.findItemByPosition(position);
+        if (item != null) {
+            item.invalidate();
+        } else if (ringRenderer != null) {
+            // Painted by the ring itself
+            spinMenuLayout.invalidate();
+        }
+    }
+
+    /**
+     * Set whether the open and close animations put the animated views on hardware layers for their length
+     * @param enabled
+     */
+    public void setHardwareLayerEnabled(boolean enabled) {
+        isHardwareLayerEnabled = enabled;
+        if (spinMenuAnimator != null) {
+            spinMenuAnimator.setHardwareLayerEnabled(enabled);
+        }
+    }
+
+    /**
+     * Set the listener of the frame statistics of the drag, fling, snap, open and close phases, null to stop recording
+     * @param listener
+     */
+    public void setOnSpinMenuMetricsListener(OnSpinMenuMetricsListener listener) {
+        if (metricsRecorder != null) {
+            metricsRecorder.end();
+        }
+        metricsRecorder = listener == null ? null : new FrameMetricsRecorder(listener, jankThresholdNanos);
+        spinMenuLayout.setMetricsRecorder(metricsRecorder);
+        if (spinMenuAnimator != null) {
+            spinMenuAnimator.setMetricsRecorder(metricsRecorder);
+        }
+    }
+
+    /**
+     * Set the frame duration above which a frame is counted as jank in the metrics
+     * @param thresholdMillis
+     */
+    public void setJankThreshold(float thresholdMillis) {
+        if (thresholdMillis <= 0) {
+            throw new IllegalArgumentException("Jank threshold must be greater than 0");
+        }
+        jankThresholdNanos = (long) (thresholdMillis * 1000000);
+        if (metricsRecorder != null) {
+            metricsRecorder.setJankThresholdNanos(jankThresholdNanos);
+        }
+    }
+
+    /**
+     * Set whether to record the delay between every drag event of the ring and the frame that draws the resulting rotation. <br/>
+     * The delays are kept in a fixed-size histogram read through {@link #getInputLatencyHistogram()}
+     * @param enabled
+     */
+    public void setInputLatencyTrackingEnabled(boolean enabled) {
+        if (enabled && inputLatencyHistogram == null) {
+            inputLatencyHistogram = new LatencyHistogram();
+        } else if (!enabled) {
+            inputLatencyHistogram = null;
+        }
+        spinMenuLayout.setInputLatencyHistogram(inputLatencyHistogram);
+    }
+
+    /**
+     * Get the input latency histogram, in microseconds. Call {@link LatencyHistogram#reset()} on it to start a new measurement
+     * @return the histogram, or null when latency tracking is not enabled
+     */
+    public LatencyHistogram getInputLatencyHistogram() {
+        return inputLatencyHistogram;
+    }
+
     public void setMenuItemScaleValue(float scaleValue) {
         scaleRatio = scaleValue;
     }
 
     public void setHintTextSize(int textSize) {
         hintTextSize = textSize;
+        if (ringRenderer != null) {
+            ringRenderer.setLabelStyle(sp2Px(hintTextSize), hintTextColor);
+        }
     }
 
     public void setHintTextColor(int textColor) {
         hintTextColor = textColor;
+        if (ringRenderer != null) {
+            ringRenderer.setLabelStyle(sp2Px(hintTextSize), hintTextColor);
+        }
     }
 
     public void setHintTextStrList(List<String> hintTextList) {
         hintStrList = hintTextList;
+        if (ringRenderer != null) {
+            ringRenderer.setLabels(hintStrList);
+        }
+    }
+
+    /**
+     * Set the listener told of the position an automatic rotation (fling, snap or click) will stop on,
+     * as soon as the rotation starts, so the page can start loading its data during the animation
+     * @param listener
+     */
+    public void setOnSpinLandingListener(OnSpinLandingListener listener) {
+        onSpinLandingListener = listener;
+    }
+
+    /**
+     * Set the listener of the rotation of the ring: the position at the center slot and the fractional offset
+     * towards the next one, at most once per frame, to drive light visuals in sync with the ring
+     * @param listener
+     */
+    public void setOnSpinScrollListener(OnSpinScrollListener listener) {
+        spinMenuLayout.setOnSpinScrollListener(listener);
     }
 
     public void setOnSpinMenuStateChangeListener(OnSpinMenuStateChangeListener listener) {
@@ -398,4 +1346,43 @@ public class SpinMenu extends FrameLayout {
     public float getScaleRatio() {
         return scaleRatio;
     }
+
+    /**
+     * Selection and menu state kept across configuration changes and process death
+     */
+    static class SavedState extends BaseSavedState {
+
+        int selectedPosition;
+
+        int menuState;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            selectedPosition = in.readInt();
+            menuState = in.readInt();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(selectedPosition);
+            out.writeInt(menuState);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
 }
@@ -29,7 +29,27 @@ public class SpinMenuAnimator {
 
     private OnSpinMenuStateChangeListener onSpinMenuStateChangeListener;
 
-    private float diffTranY;
+    /**
+     * Translation of the page covering the whole SpinMenu from its menu item container
+     */
+    private final float[] closedTranslation = new float[2];
+
+    /**
+     * Whether to put the animated views on hardware layers for the length of the animations
+     */
+    private boolean isHardwareLayerEnabled = true;
+
+    private final HardwareLayerHolder layerHolder = new HardwareLayerHolder();
+
+    /**
+     * The open or close animation in flight, null when the menu is at rest
+     */
+    private AnimatorSet runningAnimator;
+
+    /**
+     * Records the frames of the open and close animations, null when nobody listens to the metrics
+     */
+    private FrameMetricsRecorder metricsRecorder;
 
     public SpinMenuAnimator(SpinMenu spinMenu, SpinMenuLayout spinMenuLayout, OnSpinMenuStateChangeListener listener) {
         this.spinMenu = spinMenu;
@@ -37,43 +57,44 @@ public class SpinMenuAnimator {
         this.onSpinMenuStateChangeListener = listener;
     }
 
+    /**
+     * Open the menu. When the close animation is in flight, it is reversed from its current animated values
+     */
     public void openMenuAnimator() {
-        // Update the menu status to MENU_STATE_OPEN and display SpinMenuLayout before opening the menu
+        cancelRunningAnimator();
+
+        // Update the menu status to MENU_STATE_OPEN and show all the menu items before opening the menu
         spinMenu.updateMenuState(SpinMenu.MENU_STATE_OPEN);
-        spinMenuLayout.setVisibility(View.VISIBLE);
+        spinMenuLayout.setSelectedItemOnly(false);
 
-        ViewGroup selectItemLayout = (ViewGroup) spinMenuLayout.getChildAt(spinMenuLayout.getSelectedPosition());
-        final ViewGroup showingPager = (ViewGroup) spinMenu.getChildAt(spinMenu.getChildCount() - 1);
-        final ViewGroup selectContainer = (ViewGroup) selectItemLayout.findViewWithTag(SpinMenu.TAG_ITEM_CONTAINER);
+        ViewGroup selectItemLayout = spinMenuLayout.findItemByPosition(spinMenuLayout.getSelectedPosition());
+        final ViewGroup showingPager = (ViewGroup) selectItemLayout.findViewWithTag(SpinMenu.TAG_ITEM_PAGER);
         final float scaleRatio = spinMenu.getScaleRatio();
-        diffTranY = (showingPager.getHeight() * (1.f -  scaleRatio)) * .5f - selectItemLayout.getTop();
 
         // Get the menu item to the left of the middle position of the current menu, and set the right move picture
+        // (findItemByPosition wraps around in the cyclic mode, and returns null beyond the first and last menu item)
         ObjectAnimator leftTranXAnima = null, rightTranXAnima = null;
-        if (spinMenuLayout.getSelectedPosition() - 1 > -1) {
-            ViewGroup leftItemLayout = (ViewGroup) spinMenuLayout.getChildAt(spinMenuLayout.getSelectedPosition() - 1);
-            leftTranXAnima = ObjectAnimator.ofFloat(leftItemLayout, "translationX", leftItemLayout.getTranslationX(), 0);
-        } else if (spinMenuLayout.isCyclic() && spinMenuLayout.getSelectedPosition() == 0) {
-            ViewGroup leftItemLayout = (ViewGroup) spinMenuLayout.getChildAt(spinMenuLayout.getMenuItemCount() - 1);
+        ViewGroup leftItemLayout = spinMenuLayout.findItemByPosition(spinMenuLayout.getSelectedPosition() - 1);
+        if (leftItemLayout != null) {
             leftTranXAnima = ObjectAnimator.ofFloat(leftItemLayout, "translationX", leftItemLayout.getTranslationX(), 0);
         }
 
         // Get the menu item to the right of the middle position of the current menu, and set the left moving picture
-        if (spinMenuLayout.getSelectedPosition() + 1 < spinMenuLayout.getChildCount()) {
-            ViewGroup rightItemLayout = (ViewGroup) spinMenuLayout.getChildAt(spinMenuLayout.getSelectedPosition() + 1);
-            rightTranXAnima = ObjectAnimator.ofFloat(rightItemLayout, "translationX", rightItemLayout.getTranslationX(), 0);
-        } else if (spinMenuLayout.isCyclic() && spinMenuLayout.getSelectedPosition() + 1 == spinMenuLayout.getMenuItemCount()) {
-            ViewGroup rightItemLayout = (ViewGroup) spinMenuLayout.getChildAt(0);
+        ViewGroup rightItemLayout = spinMenuLayout.findItemByPosition(spinMenuLayout.getSelectedPosition() + 1);
+        if (rightItemLayout != null) {
             rightTranXAnima = ObjectAnimator.ofFloat(rightItemLayout, "translationX", rightItemLayout.getTranslationX(), 0);
         }
 
-        // Set the current page's zoom and move the picture
+        // Set the current page's zoom and move it into its menu item container
         ObjectAnimator scaleXAnima = ObjectAnimator.ofFloat(
                 showingPager, "scaleX", showingPager.getScaleX(), scaleRatio);
         ObjectAnimator scaleYAnima = ObjectAnimator.ofFloat(
                 showingPager, "scaleY", showingPager.getScaleY(), scaleRatio);
+        ObjectAnimator tranXAnima = ObjectAnimator.ofFloat(
+                showingPager, "translationX", showingPager.getTranslationX(), spinMenu.getOpenedPagerTranslationX()
+        );
         ObjectAnimator tranYAnima = ObjectAnimator.ofFloat(
-                showingPager, "translationY", showingPager.getTranslationY(), -diffTranY
+                showingPager, "translationY", showingPager.getTranslationY(), spinMenu.getOpenedPagerTranslationY()
         );
 
         AnimatorSet animatorSet = new AnimatorSet();
@@ -81,6 +102,7 @@ public class SpinMenuAnimator {
         animatorSet.setInterpolator(interpolator);
         AnimatorSet.Builder animaBuilder = animatorSet.play(scaleXAnima)
                 .with(scaleYAnima)
+                .with(tranXAnima)
                 .with(tranYAnima);
         if (leftTranXAnima != null) {
             animaBuilder.with(leftTranXAnima);
@@ -88,29 +110,21 @@ public class SpinMenuAnimator {
         if (rightTranXAnima != null) {
             animaBuilder.with(rightTranXAnima);
         }
+        promoteLayers(showingPager, leftTranXAnima, rightTranXAnima);
+        if (metricsRecorder != null) {
+            metricsRecorder.begin(PhaseMetrics.PHASE_OPEN);
+        }
+        runningAnimator = animatorSet;
         animatorSet.start();
 
         animatorSet.addListener(new AnimatorListenerAdapter() {
             @Override
             public void onAnimationEnd(Animator animation) {
-                // Remove showingPager from SpinMenu
-                spinMenu.removeView(showingPager);
-
-                // Remove the FrameLayout used to occupy the placeholder from the selectContainer
-                selectContainer.removeAllViews();
-
-                // Add showingPager to selectContainer
-                FrameLayout.LayoutParams pagerParams = new FrameLayout.LayoutParams(
-                        showingPager.getWidth(),
-                        showingPager.getHeight()
-                );
-                selectContainer.addView(showingPager, pagerParams);
-
-                // Correct the position of showingPager in selectContainer
-                float tranX = (showingPager.getWidth() * (1.f -  scaleRatio)) * .5f;
-                float tranY = (showingPager.getHeight() * (1.f -  scaleRatio)) * .5f;
-                showingPager.setTranslationX(-tranX);
-                showingPager.setTranslationY(-tranY);
+                runningAnimator = null;
+                layerHolder.restore();
+                if (metricsRecorder != null) {
+                    metricsRecorder.end();
+                }
 
                 if (onSpinMenuStateChangeListener != null) {
                     onSpinMenuStateChangeListener.onMenuOpened();
@@ -123,66 +137,42 @@ public class SpinMenuAnimator {
         });
     }
 
+    /**
+     * Close the menu on the chosen menu item. When the open animation is in flight, it is reversed
+     * from its current animated values
+     * @param chooseItemLayout
+     */
     public void closeMenuAnimator(SMItemLayout chooseItemLayout) {
+        cancelRunningAnimator();
+
         // The menu state is updated to MENU_STATE_CLOSE before the menu is closed, and the slide control spinMenuLayout is not allowed to rotate.
         spinMenu.updateMenuState(SpinMenu.MENU_STATE_CLOSE);
         spinMenuLayout.postEnable(false);
 
-         // Remove the FrameLayout containing the display Fragment from the chooseItemLayout
-        FrameLayout frameContainer = (FrameLayout) chooseItemLayout.findViewWithTag(SpinMenu.TAG_ITEM_CONTAINER);
-        FrameLayout pagerLayout = (FrameLayout) frameContainer.findViewWithTag(SpinMenu.TAG_ITEM_PAGER);
-        frameContainer.removeView(pagerLayout);
-
-        // Create a FrameLayout for placeholders
-        FrameLayout.LayoutParams pagerFrameParams = new FrameLayout.LayoutParams(
-                ViewGroup.LayoutParams.MATCH_PARENT,
-                ViewGroup.LayoutParams.MATCH_PARENT);
-        FrameLayout holderLayout = new FrameLayout(chooseItemLayout.getContext());
-        holderLayout.setLayoutParams(pagerFrameParams);
-
-        // Add a placeholder FrameLayout to the frameContainer in the chooseItemLayout layout
-        frameContainer.addView(holderLayout);
-
-        // Add pagerLayout to the SpinMenu
-        pagerLayout.setLayoutParams(pagerFrameParams);
-        spinMenu.addView(pagerLayout);
-
-        // Place pagerLayout to the same location
-        int currTranX = (int) (spinMenu.getWidth() * (1.f - spinMenu.getScaleRatio()) * .5f);
-        int currTranY = (int) (spinMenu.getHeight() * (1.f - spinMenu.getScaleRatio()) * .5f - diffTranY);
-        pagerLayout.setTranslationX(currTranX);
-        pagerLayout.setTranslationY(currTranY);
-        pagerLayout.setScaleX(spinMenu.getScaleRatio());
-        pagerLayout.setScaleY(spinMenu.getScaleRatio());
+        // The page stays in its menu item container, it is only transformed to cover the whole SpinMenu
+        final FrameLayout pagerLayout = (FrameLayout) chooseItemLayout.findViewWithTag(SpinMenu.TAG_ITEM_PAGER);
+        spinMenu.computeClosedPagerTranslation(pagerLayout, closedTranslation);
 
         // Get the menu item to the left of the middle position of the current menu, and set the left moving picture
         ObjectAnimator leftTranXAnima = null, rightTranXAnima = null;
-        if (spinMenuLayout.getSelectedPosition() - 1 > -1) {
-            ViewGroup leftItemLayout = (ViewGroup) spinMenuLayout.getChildAt(spinMenuLayout.getSelectedPosition() - 1);
-            leftTranXAnima = ObjectAnimator.ofFloat(leftItemLayout, "translationX",
-                    leftItemLayout.getTranslationX(), -SpinMenu.TRAN_SKNEW_VALUE);
-        } else if (spinMenuLayout.isCyclic() && spinMenuLayout.getSelectedPosition() == 0) {
-            ViewGroup leftItemLayout = (ViewGroup) spinMenuLayout.getChildAt(spinMenuLayout.getMenuItemCount() - 1);
+        ViewGroup leftItemLayout = spinMenuLayout.findItemByPosition(spinMenuLayout.getSelectedPosition() - 1);
+        if (leftItemLayout != null) {
             leftTranXAnima = ObjectAnimator.ofFloat(leftItemLayout, "translationX",
                     leftItemLayout.getTranslationX(), -SpinMenu.TRAN_SKNEW_VALUE);
         }
 
         // Get the menu item to the right of the middle of the current menu and set the right move picture
-        if (spinMenuLayout.getSelectedPosition() + 1 < spinMenuLayout.getChildCount()) {
-            ViewGroup rightItemLayout = (ViewGroup) spinMenuLayout.getChildAt(spinMenuLayout.getSelectedPosition() + 1);
-            rightTranXAnima = ObjectAnimator.ofFloat(rightItemLayout, "translationX",
-                    rightItemLayout.getTranslationX(), SpinMenu.TRAN_SKNEW_VALUE);
-        } else if (spinMenuLayout.isCyclic() && spinMenuLayout.getSelectedPosition() + 1 == spinMenuLayout.getMenuItemCount()) {
-            ViewGroup rightItemLayout = (ViewGroup) spinMenuLayout.getChildAt(0);
+        ViewGroup rightItemLayout = spinMenuLayout.findItemByPosition(spinMenuLayout.getSelectedPosition() + 1);
+        if (rightItemLayout != null) {
             rightTranXAnima = ObjectAnimator.ofFloat(rightItemLayout, "translationX",
                     rightItemLayout.getTranslationX(), SpinMenu.TRAN_SKNEW_VALUE);
         }
 
         // Set the zoom of the currently selected menu, move the picture left and right and down
         ObjectAnimator scaleXAnima =  ObjectAnimator.ofFloat(pagerLayout, "scaleX", pagerLayout.getScaleX(), 1.f);
-        ObjectAnimator scaleYAnima =  ObjectAnimator.ofFloat(pagerLayout, "scaleY", pagerLayout.getScaleX(), 1.f);
-        ObjectAnimator tranXAnima = ObjectAnimator.ofFloat(pagerLayout, "translationX", 0, 0);
-        ObjectAnimator tranYAnima = ObjectAnimator.ofFloat(pagerLayout, "translationY", -diffTranY, 0);
+        ObjectAnimator scaleYAnima =  ObjectAnimator.ofFloat(pagerLayout, "scaleY", pagerLayout.getScaleY(), 1.f);
+        ObjectAnimator tranXAnima = ObjectAnimator.ofFloat(pagerLayout, "translationX", pagerLayout.getTranslationX(), closedTranslation[0]);
+        ObjectAnimator tranYAnima = ObjectAnimator.ofFloat(pagerLayout, "translationY", pagerLayout.getTranslationY(), closedTranslation[1]);
         AnimatorSet animatorSet = new AnimatorSet();
         animatorSet.setDuration(300);
         animatorSet.setInterpolator(interpolator);
@@ -196,19 +186,75 @@ public class SpinMenuAnimator {
         if (rightTranXAnima != null) {
             animaBuilder.with(rightTranXAnima);
         }
+        promoteLayers(pagerLayout, leftTranXAnima, rightTranXAnima);
+        if (metricsRecorder != null) {
+            metricsRecorder.begin(PhaseMetrics.PHASE_CLOSE);
+        }
+        runningAnimator = animatorSet;
         animatorSet.start();
 
         animatorSet.addListener(new AnimatorListenerAdapter() {
             @Override
             public void onAnimationEnd(Animator animation) {
+                runningAnimator = null;
+                layerHolder.restore();
+                if (metricsRecorder != null) {
+                    metricsRecorder.end();
+                }
+
                 if (onSpinMenuStateChangeListener != null) {
                     onSpinMenuStateChangeListener.onMenuClosed();
                 }
 
-                // After the menu is closed, set the spinMenuLayout to hide and the menu status is updated to MENU_STATE_CLOSED
-                spinMenuLayout.setVisibility(View.GONE);
+                // After the menu is closed, only the selected page is shown and the menu status is updated to MENU_STATE_CLOSED
+                spinMenuLayout.setSelectedItemOnly(true);
                 spinMenu.updateMenuState(SpinMenu.MENU_STATE_CLOSED);
             }
         });
     }
+
+    /**
+     * Stop the animation in flight where it is, without running its end action.
+     * The animated views keep their current values, and stay on their hardware layers for the next animation
+     */
+    private void cancelRunningAnimator() {
+        if (runningAnimator != null) {
+            runningAnimator.removeAllListeners();
+            runningAnimator.cancel();
+            runningAnimator = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return runningAnimator != null;
+    }
+
+    /**
+     * Put the page and the menu items on both sides on hardware layers until the animation ends
+     * @param pager
+     * @param leftTranXAnima
+     * @param rightTranXAnima
+     */
+    private void promoteLayers(View pager, ObjectAnimator leftTranXAnima, ObjectAnimator rightTranXAnima) {
+        if (!isHardwareLayerEnabled) return;
+        layerHolder.promote(pager);
+        if (leftTranXAnima != null) {
+            layerHolder.promote((View) leftTranXAnima.getTarget());
+        }
+        if (rightTranXAnima != null) {
+            layerHolder.promote((View) rightTranXAnima.getTarget());
+        }
+    }
+
+    void setMetricsRecorder(FrameMetricsRecorder recorder) {
+        metricsRecorder = recorder;
+    }
+
+    public void setHardwareLayerEnabled(boolean enabled) {
+        isHardwareLayerEnabled = enabled;
+    }
+
+    public boolean isHardwareLayerEnabled() {
+        return isHardwareLayerEnabled;
+    }
 }
@@ -1,12 +1,20 @@
 package com.hitomi.smlibrary;
 
 import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.os.Build;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.Scroller;
 
+import com.hitomi.smcore.LatencyHistogram;
+import com.hitomi.smcore.SpinGeometry;
+
 /**
  * Created by hitomi on 2016/9/13. <br/>
  *
@@ -19,37 +27,32 @@ public class SpinMenuLayout extends ViewGroup implements Runnable, View.OnClickL
     /**
      * Angle of view between views
      */
-    private static final int ANGLE_SPACE = 45;
+    private static final int ANGLE_SPACE = SpinGeometry.ANGLE_SPACE;
 
     /**
      * The minimum rotation angle of the view when rotating
      */
-    private static final int MIN_PER_ANGLE = ANGLE_SPACE;
+    private static final int MIN_PER_ANGLE = SpinGeometry.MIN_PER_ANGLE;
 
     /**
      * Faster for automatic scrolling, no other meaning
      */
     private static final float ACCELERATE_ANGLE_RATIO = 1.8f;
 
-    /**
-     * Used to lengthen the radius, no other meaning
-     */
-    private static final float RADIUS_HALF_WIDTH_RATIO = 1.2f;
-
     /**
      * The delay ratio of the rotation angle when the rotation angle exceeds the rotatable range
      */
     private static final float DELAY_ANGLE_RATIO = 5.6f;
 
     /**
-     * Click and drag switching threshold
+     * Frame interval used to drive the automatic scrolling when there is no Choreographer (below API 16)
      */
-    private final int touchSlopAngle = 2;
+    private static final long FALLBACK_FRAME_DELAY = 16;
 
     /**
-     * Minimum and maximum inertial roll angle values [-(getChildCount() - 1) * ANGLE_SPACE, 0]
+     * Click and drag switching threshold
      */
-    private int minFlingAngle, maxFlingAngle;
+    private final int touchSlopAngle = 2;
 
     /**
      * delayAngle: the total angle value of the current rotation, perAngle: the angle value of each rotation
@@ -57,41 +60,172 @@ public class SpinMenuLayout extends ViewGroup implements Runnable, View.OnClickL
     private float delayAngle, perAngle;
 
     /**
-     * Radius: the midpoint from the bottom edge to the Child height
+     * Angle math of the ring: slot placement, snapping and selection
      */
-    private float radius;
+    private final SpinGeometry geometry = new SpinGeometry();
 
     /**
      * Coordinate value each time the finger is pressed
      */
     private float preX, preY;
 
+    /**
+     * Angle of the previous touch point, see {@link SpinGeometry#computeAngle(float, float)}
+     */
+    private float preTouchAngle;
+
+    /**
+     * Measured height of the menu items, all of them have the same size
+     */
+    private int boundItemHeight;
+
+    /**
+     * Reusable buffer of the center of a menu item
+     */
+    private final int[] slotCenter = new int[2];
+
+    /**
+     * Measure specs of the last measure of the menu items
+     */
+    private int lastWidthMeasureSpec, lastHeightMeasureSpec;
+
+    /**
+     * Whether menu items were added, removed or bound to other positions since the last measure
+     */
+    private boolean isChildrenChanged;
+
     /**
      * Speed of each rotation
      */
     private float anglePerSecond;
 
     /**
-     * Time value per finger press
+     * Estimate the angular velocity of the finger from the recent touch samples
      */
-    private long preTimes;
+    private final AngularVelocityTracker velocityTracker = new AngularVelocityTracker();
 
     /**
-     * Is it possible to loop through
+     * Position of the menu item currently closest to the center slot, -1 when there is no item
      */
-    private boolean isCyclic;
+    private int centerPosition = -1;
+
+    /**
+     * Range of positions currently bound to child views, see {@link #fillBoundItems()}
+     */
+    private int firstBoundPosition, lastBoundPosition = -1;
 
     /**
      * Whether to allow the menu to be rotated
      */
     private boolean enable;
 
+    /**
+     * Whether to rotate the whole ring as one transform instead of re-laying-out every child
+     */
+    private boolean isRigidRotation;
+
+    /**
+     * Whether only the menu item in the center slot is drawn and the ring ignores touches, while the menu is closed
+     */
+    private boolean isSelectedItemOnly;
+
+    /**
+     * Child index of the menu item in the center slot, drawn last so that its page grows over the other menu items
+     */
+    private int selectedChildIndex = -1;
+
+    /**
+     * Rotation of the ring around the midpoint of the bottom edge in rigid rotation mode, identity otherwise. <br/>
+     * It is applied to the canvas and to the touches of the children, not to this view: a rotated view would be
+     * clipped and hit-tested by its parent through its rotated bounds, which leave the corners of the menu uncovered
+     */
+    private final Matrix ringMatrix = new Matrix();
+
+    private final Matrix inverseRingMatrix = new Matrix();
+
+    /**
+     * Computes the fling and snap curves of the automatic scrolling, sampled once per display frame in {@link #doSpinFrame()}
+     */
     private Scroller scroller;
 
+    /**
+     * Whether a frame of the automatic scrolling is scheduled
+     */
+    private boolean isSpinning;
+
+    /**
+     * Vsync frame callback that drives the automatic scrolling (API 16+)
+     */
+    private Choreographer.FrameCallback spinFrameCallback;
+
     private OnSpinSelectedListener onSpinSelectedListener;
 
+    private OnSpinLandingListener onSpinLandingListener;
+
+    private OnSpinScrollListener onSpinScrollListener;
+
+    /**
+     * Whether the rotation angle changed since the last {@link OnSpinScrollListener} call
+     */
+    private boolean isScrollDispatchPending;
+
+    /**
+     * Rotation angle of the last {@link OnSpinScrollListener} call
+     */
+    private float lastScrolledAngle = Float.NaN;
+
     private com.hitomi.smlibrary.onMenuSelectedListener onMenuSelectedListener;
 
+    private OnCenterPositionChangeListener onCenterPositionChangeListener;
+
+    private ItemBinder itemBinder;
+
+    /**
+     * Paints the menu items outside the center slot in the canvas ring mode, null in the default mode
+     */
+    private CanvasRingRenderer ringRenderer;
+
+    /**
+     * Records the frames of the drag, fling and snap phases, null when nobody listens to the metrics
+     */
+    private FrameMetricsRecorder metricsRecorder;
+
+    /**
+     * Delays (us) between a drag event and the frame drawing the resulting angle, null when latency tracking is off
+     */
+    private LatencyHistogram inputLatencyHistogram;
+
+    /**
+     * Event time (ms, uptime base) of the oldest drag event not drawn yet, -1 when there is none
+     */
+    private long pendingInputTime = -1;
+
+    private final ViewTreeObserver.OnPreDrawListener latencyPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            if (pendingInputTime >= 0 && inputLatencyHistogram != null) {
+                // MotionEvent times and System.nanoTime() are both on the monotonic clock
+                inputLatencyHistogram.record(System.nanoTime() / 1000 - pendingInputTime * 1000);
+                pendingInputTime = -1;
+            }
+            return true;
+        }
+    };
+
+    private final ViewTreeObserver.OnPreDrawListener scrollPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            // However many touch events or rotations happened since the last frame, report the angle drawn once
+            if (isScrollDispatchPending && onSpinScrollListener != null) {
+                isScrollDispatchPending = false;
+                lastScrolledAngle = delayAngle;
+                onSpinScrollListener.onSpinScrolled(geometry.computeScrollPosition(delayAngle),
+                        geometry.computeScrollOffset(delayAngle));
+            }
+            return true;
+        }
+    };
+
     public SpinMenuLayout(Context context) {
         this(context, null);
     }
@@ -103,66 +237,262 @@ public class SpinMenuLayout extends ViewGroup implements Runnable, View.OnClickL
     public SpinMenuLayout(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         scroller = new Scroller(context);
+        setChildrenDrawingOrderEnabled(true);
+        // The pages grow out of their menu item to cover the whole menu while it is closed, opens or closes
+        setClipChildren(false);
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-
         // Width, height are consistent with the parent container
         ViewGroup parent = ((ViewGroup )getParent());
         int measureWidth = parent.getMeasuredWidth();
         int measureHeight = parent.getMeasuredHeight();
         setMeasuredDimension(measureWidth, measureHeight);
 
-        if (getChildCount() > 0) {
-            // Measuring child elements
-            measureChildren(widthMeasureSpec, heightMeasureSpec);
+        // The menu items are only measured again when their constraints or their content changed
+        if (widthMeasureSpec != lastWidthMeasureSpec || heightMeasureSpec != lastHeightMeasureSpec
+                || isChildrenChanged || isChildLayoutRequested()) {
+            lastWidthMeasureSpec = widthMeasureSpec;
+            lastHeightMeasureSpec = heightMeasureSpec;
+            isChildrenChanged = false;
+            if (getChildCount() > 0) {
+                // Measuring child elements
+                measureChildren(widthMeasureSpec, heightMeasureSpec);
+            }
+            int itemHeight = getBoundItemHeight();
+            if (itemHeight != boundItemHeight) {
+                boundItemHeight = itemHeight;
+                geometry.setSize(measureWidth, measureHeight, boundItemHeight);
+            }
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        geometry.setSize(w, h, boundItemHeight);
+        updateRingMatrix();
+    }
+
+    /**
+     * Update {@link #ringMatrix} to the current rotation angle
+     */
+    private void updateRingMatrix() {
+        if (isRigidRotation) {
+            // The ring rotates around the midpoint of the bottom edge
+            ringMatrix.setRotate(delayAngle, getWidth() / 2, getHeight());
+        } else {
+            ringMatrix.reset();
+        }
+        ringMatrix.invert(inverseRingMatrix);
+    }
+
+    /**
+     * Whether a menu item asked for a new layout, e.g. because its title changed
+     * @return
+     */
+    private boolean isChildLayoutRequested() {
+        for (int i = 0; i < getChildCount(); i++) {
+            if (getChildAt(i).isLayoutRequested()) return true;
         }
+        return false;
     }
 
     @Override
     protected void onLayout(boolean b, int left, int top, int right, int bottom) {
+        layoutItems();
+    }
+
+    /**
+     * Place the menu items on the ring at the current rotation angle. <br/>
+     * Called by the layout pass, and directly by the rotation frames, which only move the menu items
+     * and therefore need no measure pass
+     */
+    private void layoutItems() {
         final int childCount = getChildCount();
         if (childCount <= 0) return;
+        final long layoutStartNanos = metricsRecorder != null ? System.nanoTime() : 0;
 
-        isCyclic = getChildCount() == 360 / MIN_PER_ANGLE;
-        computeFlingLimitAngle();
+        if (geometry.isCyclic()) {
+            delayAngle %= 360.f;
+        }
 
-        delayAngle %= 360.f;
-        float startAngle = delayAngle;
+        updateRingMatrix();
 
-        View child;
-        int childWidth, childHeight;
-        int centerX = getMeasuredWidth() / 2;
-        int centerY = getMeasuredHeight();
-        radius = centerX * RADIUS_HALF_WIDTH_RATIO + getChildAt(1).getMeasuredHeight() / 2;
+        // In rigid rotation mode, the children are placed on their base angles and the ring itself is rotated
+        final float ringAngle = isRigidRotation ? 0 : delayAngle;
+        // The only trigonometry of the pass, the slots are derived from it by angle addition
+        geometry.setPlacementAngle(ringAngle);
 
+        View child;
+        int childWidth, childHeight, left, top;
+        float startAngle;
+        int position;
         for (int i = 0; i < childCount; i++) {
             child = getChildAt(i);
+            if (child.getVisibility() == GONE) continue;
             childWidth = child.getMeasuredWidth();
             childHeight = child.getMeasuredHeight();
 
-            left = (int) (centerX + Math.sin(Math.toRadians(startAngle)) * radius);
-            top = (int) (centerY - Math.cos(Math.toRadians(startAngle)) * radius);
+            position = ((SMItemLayout) child).getPosition();
+            if (!isRigidRotation) {
+                // The menu items entirely outside the view are neither laid out, drawn nor touched
+                if (!geometry.isSlotVisible(position, childWidth, childHeight)) {
+                    child.setVisibility(INVISIBLE);
+                    continue;
+                }
+                child.setVisibility(VISIBLE);
+            }
+            startAngle = geometry.getSlotAngle(position, ringAngle);
+
+            geometry.placeSlot(position, slotCenter);
+            left = slotCenter[0];
+            top = slotCenter[1];
 
             child.layout(left - childWidth / 2, top - childHeight / 2,
                         left + childWidth / 2, top + childHeight / 2);
 
-            child.setOnClickListener(this);
             child.setRotation(startAngle);
-            startAngle += ANGLE_SPACE;
+        }
+        if (isRigidRotation) {
+            cullItems();
+        }
+
+        if (metricsRecorder != null) {
+            metricsRecorder.addLayoutTime(System.nanoTime() - layoutStartNanos);
+        }
+    }
+
+    /**
+     * Hide the bound menu items entirely outside the view at the current rotation angle, so that they are
+     * neither drawn nor touched. In rigid rotation mode the menu items keep their layout, only the ring rotates
+     */
+    private void cullItems() {
+        geometry.setPlacementAngle(delayAngle);
+        View child;
+        for (int i = 0; i < getChildCount(); i++) {
+            child = getChildAt(i);
+            if (child.getVisibility() == GONE) continue;
+            child.setVisibility(geometry.isSlotVisible(((SMItemLayout) child).getPosition(),
+                    child.getMeasuredWidth(), child.getMeasuredHeight()) ? VISIBLE : INVISIBLE);
         }
     }
 
+    /**
+     * Get the measured height of the menu items, all of them have the same size
+     * @return
+     */
+    private int getBoundItemHeight() {
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != GONE) {
+                return child.getMeasuredHeight();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the measured width of the menu items, all of them have the same size
+     * @return
+     */
+    private int getBoundItemWidth() {
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != GONE) {
+                return child.getMeasuredWidth();
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void addView(View child, int index, LayoutParams params) {
+        super.addView(child, index, params);
+        // All the addView variants end up here, so every menu item gets the click listener once
+        child.setOnClickListener(this);
+        isChildrenChanged = true;
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        isChildrenChanged = true;
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         return true;
     }
 
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        selectedChildIndex = -1;
+        int selPos = getSelectedPosition();
+        for (int i = 0; i < getChildCount(); i++) {
+            if (((SMItemLayout) getChildAt(i)).getPosition() == selPos) {
+                selectedChildIndex = i;
+                break;
+            }
+        }
+        if (ringRenderer != null && !isSelectedItemOnly) {
+            drawRing(canvas);
+        }
+        if (isRigidRotation) {
+            int saveCount = canvas.save();
+            canvas.concat(ringMatrix);
+            super.dispatchDraw(canvas);
+            canvas.restoreToCount(saveCount);
+        } else {
+            super.dispatchDraw(canvas);
+        }
+    }
+
+    /**
+     * Paint the menu items of the bound arc that have no child view, under the child view of the center slot. <br/>
+     * They are painted at their rotated slots in both modes, the ring transform only applies to the child views
+     * @param canvas
+     */
+    private void drawRing(Canvas canvas) {
+        final int itemWidth = ringRenderer.getItemWidth();
+        final int itemHeight = ringRenderer.getItemHeight();
+        geometry.setPlacementAngle(delayAngle);
+
+        int first = geometry.computeFirstBoundPosition(delayAngle);
+        int last = geometry.computeLastBoundPosition(delayAngle);
+        int position;
+        for (int p = first; p <= last && geometry.getItemCount() > 0; p++) {
+            position = geometry.normalizePosition(p);
+            if (findItemByPosition(position) != null) continue;
+            if (!geometry.isSlotVisible(position, itemWidth, itemHeight)) continue;
+
+            geometry.placeSlot(position, slotCenter);
+            int saveCount = canvas.save();
+            canvas.translate(slotCenter[0], slotCenter[1]);
+            canvas.rotate(geometry.getSlotAngle(position, delayAngle));
+            ringRenderer.draw(canvas, position);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    @Override
+    protected int getChildDrawingOrder(int childCount, int i) {
+        if (selectedChildIndex < 0 || selectedChildIndex >= childCount || i < selectedChildIndex) return i;
+        return i == childCount - 1 ? selectedChildIndex : i + 1;
+    }
+
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        if (isSelectedItemOnly && indexOfChild(child) != selectedChildIndex) return false;
+        return super.drawChild(canvas, child, drawingTime);
+    }
+
     @Override
     public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (isSelectedItemOnly) return false;
         if (!enable) return super.dispatchTouchEvent(ev);
+        // The touch points are in the unrotated frame of the ring, whatever the mode
         float curX = ev.getX();
         float curY = ev.getY();
 
@@ -170,169 +500,421 @@ public class SpinMenuLayout extends ViewGroup implements Runnable, View.OnClickL
             case MotionEvent.ACTION_DOWN:
                 preX = curX;
                 preY = curY;
-                preTimes = System.currentTimeMillis();
+                preTouchAngle = geometry.computeAngle(curX, curY);
                 perAngle = 0;
+                velocityTracker.clear();
+                velocityTracker.addSample(ev.getEventTime(), perAngle);
 
                 if (!scroller.isFinished()) {
+                    stopSpin();
                     scroller.abortAnimation();
                 }
                 break;
             case MotionEvent.ACTION_MOVE:
-                float diffX = curX - preX;
-                float start = computeAngle(preX, preY);
-                float end = computeAngle(curX, curY);
-
-                float perDiffAngle;
-                if (diffX > 0) {
-                    perDiffAngle = Math.abs(start - end);
-                } else {
-                    perDiffAngle = -Math.abs(end - start);
+                if (metricsRecorder != null && !metricsRecorder.isRecording(PhaseMetrics.PHASE_DRAG)) {
+                    metricsRecorder.begin(PhaseMetrics.PHASE_DRAG);
                 }
-                if (!isCyclic && (delayAngle < minFlingAngle || delayAngle > maxFlingAngle)) {
-                    // Currently not in the cyclic scroll mode, and the angle of rotation is outside the range of the rotatable angle
-                    perDiffAngle /= DELAY_ANGLE_RATIO;
+                // The input system may batch several touch samples into one event, rotate through all of them
+                final int historySize = ev.getHistorySize();
+                for (int h = 0; h < historySize; h++) {
+                    rotateTo(ev.getHistoricalX(h), ev.getHistoricalY(h));
+                    velocityTracker.addSample(ev.getHistoricalEventTime(h), perAngle);
+                }
+                rotateTo(curX, curY);
+                velocityTracker.addSample(ev.getEventTime(), perAngle);
+                updateRingAngle();
+                if (inputLatencyHistogram != null && pendingInputTime < 0) {
+                    pendingInputTime = ev.getEventTime();
                 }
-                delayAngle += perDiffAngle;
-                perAngle += perDiffAngle;
-
-                preX = curX;
-                preY = curY;
-                requestLayout();
                 break;
             case MotionEvent.ACTION_UP:
-                anglePerSecond = perAngle * 1000 / (System.currentTimeMillis() - preTimes);
+                velocityTracker.addSample(ev.getEventTime(), perAngle);
+                anglePerSecond = velocityTracker.getVelocity();
+                if (Math.abs(perAngle) <= touchSlopAngle) {
+                    int tapPosition = findTappedPosition(curX, curY);
+                    if (tapPosition >= 0 && tapPosition != getSelectedPosition()) {
+                        if (findItemByPosition(tapPosition) != null) {
+                            // The click of the menu item scrolls it to the center slot, see onClick, no snap before it
+                            endMetricsPhase();
+                        } else {
+                            // The painted menu items have no view to be clicked
+                            spinToPosition(tapPosition);
+                        }
+                        break;
+                    }
+                }
+                int previousPosition = getSelectedPosition();
                 int startAngle = (int) delayAngle;
+                int spinPhase;
+                int minFlingAngle = geometry.getMinFlingAngle();
+                int maxFlingAngle = geometry.getMaxFlingAngle();
                 if (Math.abs(anglePerSecond) > MIN_PER_ANGLE && startAngle >= minFlingAngle && startAngle <= maxFlingAngle) {
                     scroller.fling(startAngle, 0, (int) (anglePerSecond * ACCELERATE_ANGLE_RATIO), 0, minFlingAngle, maxFlingAngle, 0, 0);
-                    scroller.setFinalX(scroller.getFinalX() + computeDistanceToEndAngle(scroller.getFinalX() % ANGLE_SPACE));
+                    scroller.setFinalX(scroller.getFinalX() + geometry.computeDistanceToEndAngle(scroller.getFinalX() % ANGLE_SPACE, perAngle));
+                    spinPhase = PhaseMetrics.PHASE_FLING;
                 } else {
-                    scroller.startScroll(startAngle, 0, computeDistanceToEndAngle(startAngle % ANGLE_SPACE), 0, 300);
+                    scroller.startScroll(startAngle, 0, geometry.computeDistanceToEndAngle(startAngle % ANGLE_SPACE, perAngle), 0, 300);
+                    spinPhase = PhaseMetrics.PHASE_SNAP;
                 }
 
-                if (!isCyclic) { // When it is not a cyclic rotation, the angle needs to be corrected.
-                    if (scroller.getFinalX() >= maxFlingAngle) {
-                        scroller.setFinalX(maxFlingAngle);
-                    } else if (scroller.getFinalX() <= minFlingAngle) {
-                        scroller.setFinalX(minFlingAngle);
-                    }
+                // When it is not a cyclic rotation, the angle needs to be corrected.
+                scroller.setFinalX(geometry.clampFinalAngle(scroller.getFinalX()));
+                if (scroller.getFinalX() == startAngle) {
+                    // Already resting on a slot: no automatic scrolling, and no landing to report
+                    settleWithoutSpin(previousPosition);
+                } else {
+                    // Scroll automatically, one step per display frame
+                    startSpin(spinPhase);
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                // A parent took the gesture over, the drag phase ends without an automatic scrolling
+                if (metricsRecorder != null && metricsRecorder.isRecording(PhaseMetrics.PHASE_DRAG)) {
+                    metricsRecorder.end();
                 }
-                // Post a task, scroll automatically
-                post(this);
                 break;
         }
-        return super.dispatchTouchEvent(ev);
+        if (!isRigidRotation) return super.dispatchTouchEvent(ev);
+        // The children are drawn through the ring transform, hit-test them in the same frame
+        ev.transform(inverseRingMatrix);
+        boolean handled = super.dispatchTouchEvent(ev);
+        ev.transform(ringMatrix);
+        return handled;
     }
 
     /**
-     * Calculate the minimum and maximum inertial roll angles
+     * Find the menu item under a tap
+     * @param x
+     * @param y
+     * @return the position of the menu item, -1 when the tap is on no menu item
      */
-    private void computeFlingLimitAngle() {
-        // Since the center point is at the midpoint of the bottom edge (the coordinate system is opposite),
-        // the min and max calculated here are opposite to the actual one.
-        minFlingAngle = isCyclic ? Integer.MIN_VALUE : -ANGLE_SPACE * (getChildCount() - 1);
-        maxFlingAngle = isCyclic ? Integer.MAX_VALUE : 0;
+    private int findTappedPosition(float x, float y) {
+        // The touch point is in the unrotated frame in both modes, where the slots are turned by delayAngle
+        if (ringRenderer != null) {
+            return geometry.findSlotAt(x, y, delayAngle, ringRenderer.getItemWidth(), ringRenderer.getItemHeight());
+        }
+        return geometry.findSlotAt(x, y, delayAngle, getBoundItemWidth(), boundItemHeight);
     }
 
     /**
-     * Calculate the angle of rotation based on the coordinates of the current touch point
-     * @param xTouch
-     * @param yTouch
-     * @return
+     * End a gesture that left the ring on a slot, reporting the selection when the drag changed it
+     * @param previousPosition position selected before the gesture
      */
-    private float computeAngle(float xTouch, float yTouch) {
-        // The center point is at the midpoint of the bottom edge,
-        // and the point is converted to the corresponding coordinate x, y according to the center point.
-        float x = Math.abs(xTouch - getMeasuredWidth() / 2);
-        float y = Math.abs(getMeasuredHeight() - yTouch);
-        return (float) (Math.asin(y / Math.hypot(x, y)) * 180 / Math.PI);
+    private void settleWithoutSpin(int previousPosition) {
+        scroller.forceFinished(true);
+        delayAngle = scroller.getFinalX();
+        updateRingAngle();
+        endMetricsPhase();
+        int position = getSelectedPosition();
+        if (position != previousPosition && onSpinSelectedListener != null) {
+            onSpinSelectedListener.onSpinSelected(position);
+        }
     }
 
     /**
-     * Calculate the angle value at the end of automatic scrolling
-     * @param remainder
-     * @return
+     * Rotate the ring by the angle between the previous touch point and the given one
+     * @param curX
+     * @param curY
      */
-    private int computeDistanceToEndAngle(int remainder) {
-        int endAngle;
-        if (remainder > 0) {
-            if (Math.abs(remainder) > ANGLE_SPACE / 2) {
-                if (perAngle < 0) { // Counterclockwise
-                    endAngle = ANGLE_SPACE - remainder;
-                } else { // Clockwise
-                    endAngle = ANGLE_SPACE - Math.abs(remainder);
-                }
-            } else {
-                endAngle = -remainder;
+    private void rotateTo(float curX, float curY) {
+        // The angle of the previous touch point is kept, only the current one is computed
+        float curTouchAngle = geometry.computeAngle(curX, curY);
+        float perDiffAngle = geometry.computeRotation(preTouchAngle, curTouchAngle, curX - preX);
+        if (!geometry.isCyclic() && (delayAngle < geometry.getMinFlingAngle() || delayAngle > geometry.getMaxFlingAngle())) {
+            // Currently not in the cyclic scroll mode, and the angle of rotation is outside the range of the rotatable angle
+            perDiffAngle /= DELAY_ANGLE_RATIO;
+        }
+        delayAngle += perDiffAngle;
+        perAngle += perDiffAngle;
+
+        preX = curX;
+        preY = curY;
+        preTouchAngle = curTouchAngle;
+    }
+
+    /**
+     * Apply the current rotation angle {@link #delayAngle} to the ring. <br/>
+     * In rigid rotation mode only the rotation of the ring is updated, otherwise all children are re-laid out
+     */
+    private void updateRingAngle() {
+        if (geometry.isCyclic()) {
+            delayAngle %= 360.f;
+        }
+        if (fillBoundItems()) {
+            // Other pages are shown, the menu items need to be measured again
+            isChildrenChanged = true;
+            requestLayout();
+        } else if (isRigidRotation) {
+            updateRingMatrix();
+            cullItems();
+            invalidate();
+        } else {
+            // Only the positions of the menu items change, skip the measure pass
+            layoutItems();
+            invalidate();
+        }
+
+        if (onSpinScrollListener != null && delayAngle != lastScrolledAngle) {
+            isScrollDispatchPending = true;
+        }
+
+        int position = geometry.computeCenterPosition(delayAngle);
+        if (position != centerPosition) {
+            centerPosition = position;
+            if (onCenterPositionChangeListener != null) {
+                onCenterPositionChangeListener.onCenterPositionChanged(position);
             }
+        }
+    }
+
+    /**
+     * Bind the positions inside the bound arc around the center slot to child views, and recycle the
+     * child views whose position rotated out of it. Does nothing while the bound range is unchanged
+     * @return true if a child view was bound to another position
+     */
+    private boolean fillBoundItems() {
+        // Positions strictly inside the bound arc, only the center slot in the canvas ring mode
+        int first, last;
+        if (ringRenderer != null) {
+            first = last = geometry.computeCenterPosition(delayAngle);
         } else {
-            if (Math.abs(remainder) > ANGLE_SPACE / 2) {
-                if (perAngle < 0) {
-                    endAngle = -ANGLE_SPACE - remainder;
-                } else {
-                    endAngle = Math.abs(remainder) - ANGLE_SPACE;
+            first = geometry.computeFirstBoundPosition(delayAngle);
+            last = geometry.computeLastBoundPosition(delayAngle);
+        }
+        if (first == firstBoundPosition && last == lastBoundPosition) return false;
+        firstBoundPosition = first;
+        lastBoundPosition = last;
+
+        // Recycle the child views whose position is no longer in the bound range
+        SMItemLayout item;
+        for (int i = 0; i < getChildCount(); i++) {
+            item = (SMItemLayout) getChildAt(i);
+            int position = item.getPosition();
+            if (position != SMItemLayout.NO_POSITION && !isPositionBound(position)) {
+                item.setPosition(SMItemLayout.NO_POSITION);
+                item.setVisibility(GONE);
+                if (itemBinder != null) {
+                    itemBinder.recycleItem(item, position);
                 }
-            } else {
-                endAngle = -remainder;
             }
         }
-        return endAngle;
+
+        // Bind the new positions to the recycled child views
+        for (int p = first; p <= last && geometry.getItemCount() > 0; p++) {
+            int position = geometry.normalizePosition(p);
+            if (findItemByPosition(position) != null) continue;
+            item = obtainRecycledItem();
+            if (item == null) break;
+            item.setPosition(position);
+            item.setVisibility(VISIBLE);
+            if (itemBinder != null) {
+                itemBinder.bindItem(item, position);
+            }
+        }
+        return true;
     }
 
-    private int computeClickToEndAngle(int clickIndex, int currSelPos) {
-        int endAngle;
-        if (isCyclic) {
-            clickIndex = clickIndex == 0 && currSelPos == getMenuItemCount() - 1 ? getMenuItemCount() : clickIndex;
-            currSelPos = currSelPos == 0 && clickIndex != 1 ? getMenuItemCount() : currSelPos;
+    private SMItemLayout obtainRecycledItem() {
+        for (int i = 0; i < getChildCount(); i++) {
+            SMItemLayout item = (SMItemLayout) getChildAt(i);
+            if (item.getPosition() == SMItemLayout.NO_POSITION) {
+                return item;
+            }
         }
-        endAngle = (currSelPos - clickIndex) * ANGLE_SPACE;
-        return endAngle;
+        return null;
     }
 
-    @Override
-    public void run() {
-        if (scroller.isFinished()) {
-            int position = Math.abs(scroller.getCurrX() / ANGLE_SPACE);
+    /**
+     * Whether the position is inside the bound range of {@link #fillBoundItems()}
+     * @param position
+     * @return
+     */
+    private boolean isPositionBound(int position) {
+        if (position < 0 || position >= geometry.getItemCount()) return false;
+        if (!geometry.isCyclic()) {
+            return position >= firstBoundPosition && position <= lastBoundPosition;
+        }
+        for (int p = firstBoundPosition; p <= lastBoundPosition; p++) {
+            if (geometry.normalizePosition(p) == position) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Find the child view currently bound to the position
+     * @param position page position, wrapped around in the cyclic mode
+     * @return the child view, or null when the position is not bound
+     */
+    SMItemLayout findItemByPosition(int position) {
+        position = geometry.normalizePosition(position);
+        if (position < 0 || position >= geometry.getItemCount()) return null;
+        for (int i = 0; i < getChildCount(); i++) {
+            SMItemLayout item = (SMItemLayout) getChildAt(i);
+            if (item.getPosition() == position) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of slots between two positions of the ring, taking the cyclic mode into account
+     * @param position
+     * @param otherPosition
+     * @return
+     */
+    int getSlotDistance(int position, int otherPosition) {
+        return geometry.getSlotDistance(position, otherPosition);
+    }
+
+    private void endMetricsPhase() {
+        if (metricsRecorder != null) {
+            metricsRecorder.end();
+        }
+    }
+
+    /**
+     * Start the automatic scrolling towards the target of {@link #scroller}
+     * @param metricsPhase {@link PhaseMetrics#PHASE_FLING} or {@link PhaseMetrics#PHASE_SNAP}
+     */
+    private void startSpin(int metricsPhase) {
+        stopSpin();
+        isSpinning = true;
+        if (metricsRecorder != null) {
+            metricsRecorder.begin(metricsPhase);
+        }
+        postSpinFrame();
+        if (onSpinLandingListener != null) {
+            // The target of the scroller is already on a slot boundary
+            onSpinLandingListener.onSpinLanding(getSelectedPosition());
+        }
+    }
+
+    /**
+     * Cancel the scheduled frame of the automatic scrolling
+     */
+    private void stopSpin() {
+        if (!isSpinning) return;
+        isSpinning = false;
+        endMetricsPhase();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            Choreographer.getInstance().removeFrameCallback(spinFrameCallback);
+        } else {
+            removeCallbacks(this);
+        }
+    }
+
+    private void postSpinFrame() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (spinFrameCallback == null) {
+                spinFrameCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        doSpinFrame();
+                    }
+                };
+            }
+            Choreographer.getInstance().postFrameCallback(spinFrameCallback);
+        } else {
+            postDelayed(this, FALLBACK_FRAME_DELAY);
+        }
+    }
+
+    /**
+     * Advance the automatic scrolling to the current frame. Called exactly once per display frame. <br/>
+     * The scroller keeps its own fling and snap curves, it reads the animation clock, which the frame callbacks
+     * lock to the frame timestamp (API 24+). The scrolling started with the gesture, so the first frame already moves
+     */
+    private void doSpinFrame() {
+        if (!isSpinning) return;
+        boolean isScrolling = scroller.computeScrollOffset();
+        delayAngle = scroller.getCurrX();
+        updateRingAngle();
+
+        if (isScrolling && !scroller.isFinished()) {
+            postSpinFrame();
+        } else {
+            isSpinning = false;
+            scroller.forceFinished(true);
+            endMetricsPhase();
+            int position = getSelectedPosition();
             if (onSpinSelectedListener != null) {
                 onSpinSelectedListener.onSpinSelected(position);
             }
         }
-        if (scroller.computeScrollOffset()) {
-            delayAngle = scroller.getCurrX();
-            postDelayed(this, 16);
-            requestLayout();
+    }
+
+    @Override
+    public void run() {
+        // Fallback frame source below API 16
+        doSpinFrame();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (inputLatencyHistogram != null) {
+            getViewTreeObserver().addOnPreDrawListener(latencyPreDrawListener);
+        }
+        if (onSpinScrollListener != null) {
+            getViewTreeObserver().addOnPreDrawListener(scrollPreDrawListener);
         }
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        if (inputLatencyHistogram != null) {
+            getViewTreeObserver().removeOnPreDrawListener(latencyPreDrawListener);
+            pendingInputTime = -1;
+        }
+        if (onSpinScrollListener != null) {
+            getViewTreeObserver().removeOnPreDrawListener(scrollPreDrawListener);
+        }
+        if (isSpinning) {
+            // Jump to the end of the automatic scrolling, no more frames will arrive
+            stopSpin();
+            scroller.forceFinished(true);
+            delayAngle = scroller.getFinalX();
+            updateRingAngle();
+        }
+        // No frame will arrive any more, stop recording the phase in progress
+        endMetricsPhase();
+        super.onDetachedFromWindow();
+    }
+
     @Override
     public void onClick(View view) {
-        int index = indexOfChild(view);
+        int index = ((SMItemLayout) view).getPosition();
         int selPos = getSelectedPosition();
-        if (Math.abs(perAngle) <= touchSlopAngle) {
+        // While the ring is disabled (the menu is opening) it does not track the gesture, every click is a tap
+        if (!enable || Math.abs(perAngle) <= touchSlopAngle) {
             if (index != selPos) {
-                // The current click is an Item on both sides, and the item clicked is scrolled to the [Positive] position.
-                scroller.startScroll(-getSelectedPosition() * ANGLE_SPACE, 0, computeClickToEndAngle(index, selPos), 0, 300);
-                post(this);
-            } else {
-                if (view instanceof SMItemLayout
-                        && onMenuSelectedListener != null
-                        && enable) {
-                    onMenuSelectedListener.onMenuSelected((SMItemLayout) view);
+                if (enable) {
+                    spinToPosition(index);
                 }
-
+            } else if (onMenuSelectedListener != null) {
+                // Also taken while the menu opens, so that the open animation can be reversed
+                onMenuSelectedListener.onMenuSelected((SMItemLayout) view);
             }
         }
     }
 
+    /**
+     * Scroll a clicked menu item on either side to the center slot
+     * @param position
+     */
+    private void spinToPosition(int position) {
+        int selPos = getSelectedPosition();
+        scroller.startScroll(-selPos * ANGLE_SPACE, 0, geometry.computeClickToEndAngle(position, selPos), 0, 300);
+        startSpin(PhaseMetrics.PHASE_SNAP);
+    }
+
     /**
      * Get the currently selected location
      * @return
      */
     public int getSelectedPosition() {
-        if (scroller.getFinalX() > 0) {
-            return (360 - scroller.getFinalX()) / ANGLE_SPACE;
-        } else {
-            return (Math.abs(scroller.getFinalX())) / ANGLE_SPACE;
-        }
+        return geometry.getSelectedPosition(scroller.getFinalX());
     }
 
     /**
@@ -349,16 +931,175 @@ public class SpinMenuLayout extends ViewGroup implements Runnable, View.OnClickL
         }
     }
 
+    /**
+     * Get the number of slots in one turn of the ring. The number of menu items is no longer limited
+     * @return
+     * @deprecated the adapter can report any number of pages, see {@link #getMaxBoundItemCount()}
+     * for the number of child views of the ring
+     */
+    @Deprecated
     public int getMaxMenuItemCount() {
         return 360 / ANGLE_SPACE;
     }
 
+    /**
+     * Get the maximum number of child views needed to show any number of menu items,
+     * only the positions strictly inside the bound arc around the center slot are bound to child views
+     * @return
+     */
+    public int getMaxBoundItemCount() {
+        // In the canvas ring mode only the center slot has a child view
+        return ringRenderer != null ? 1 : SpinGeometry.getMaxBoundItemCount();
+    }
+
     public int getMenuItemCount() {
-        return getChildCount();
+        return geometry.getItemCount();
+    }
+
+    /**
+     * Set the number of menu items. The child views are bound to the positions around the center slot
+     * through the {@link ItemBinder}, and recycled as they rotate out of the bound arc
+     * @param count
+     * @param selectedPosition position put in the center slot, the only page bound as selected
+     */
+    void setMenuItemCount(int count, int selectedPosition) {
+        geometry.setItemCount(count);
+
+        // Unbind everything, then bind the positions of the selected angle again
+        SMItemLayout item;
+        for (int i = 0; i < getChildCount(); i++) {
+            item = (SMItemLayout) getChildAt(i);
+            item.setPosition(SMItemLayout.NO_POSITION);
+            item.setVisibility(GONE);
+        }
+        jumpToPosition(selectedPosition);
+        firstBoundPosition = 0;
+        lastBoundPosition = -1;
+        centerPosition = -1;
+        updateRingAngle();
+    }
+
+    /**
+     * Apply a change of the data set without rebinding the whole ring. <br/>
+     * The child views follow their page to its new position and are bound again through the {@link ItemBinder},
+     * which must keep their page. The child views of removed pages are recycled without calling
+     * {@link ItemBinder#recycleItem(SMItemLayout, int)}, their pages are already released.
+     * The selected page stays in the center slot
+     * @param count new number of menu items
+     * @param newPositions new position of each old position, {@link SMItemLayout#NO_POSITION} for a removed page
+     */
+    void updateMenuItems(int count, int[] newPositions) {
+        int selPos = getSelectedPosition();
+        int newSelPos = selPos < newPositions.length ? newPositions[selPos] : SMItemLayout.NO_POSITION;
+        if (newSelPos == SMItemLayout.NO_POSITION) {
+            // The selected page was removed, select the page that took its place
+            newSelPos = selPos;
+        }
+        geometry.setItemCount(count);
+
+        SMItemLayout item;
+        int position;
+        for (int i = 0; i < getChildCount(); i++) {
+            item = (SMItemLayout) getChildAt(i);
+            position = item.getPosition();
+            if (position == SMItemLayout.NO_POSITION) continue;
+            position = position < newPositions.length ? newPositions[position] : SMItemLayout.NO_POSITION;
+            item.setPosition(position);
+            if (position == SMItemLayout.NO_POSITION) {
+                item.setVisibility(GONE);
+            }
+        }
+
+        jumpToPosition(newSelPos);
+        rebindItems();
+    }
+
+    /**
+     * Put a position in the center slot without animation. The child views that stay in the bound arc keep their page
+     * @param position
+     */
+    void setSelection(int position) {
+        jumpToPosition(position);
+        rebindItems();
+    }
+
+    /**
+     * Move the ring to rest on a position at once, the spin in progress is dropped
+     * @param position clamped to the positions of the ring
+     */
+    private void jumpToPosition(int position) {
+        stopSpin();
+        int restAngle = -Math.max(0, Math.min(position, geometry.getItemCount() - 1)) * ANGLE_SPACE;
+        scroller.startScroll(restAngle, 0, 0, 0, 0);
+        scroller.forceFinished(true);
+        delayAngle = restAngle;
+    }
+
+    /**
+     * Bind the child views showing a position again, so that they refresh their selection dependent state,
+     * then bind the positions of the bound range not shown yet
+     */
+    private void rebindItems() {
+        SMItemLayout item;
+        for (int i = 0; i < getChildCount(); i++) {
+            item = (SMItemLayout) getChildAt(i);
+            if (item.getPosition() != SMItemLayout.NO_POSITION && itemBinder != null) {
+                itemBinder.bindItem(item, item.getPosition());
+            }
+        }
+        firstBoundPosition = 0;
+        lastBoundPosition = -1;
+        centerPosition = -1;
+        updateRingAngle();
     }
 
     public boolean isCyclic() {
-        return isCyclic;
+        return geometry.isCyclic();
+    }
+
+    /**
+     * Whether an automatic rotation is in progress, the selected position is then where it will stop
+     * @return
+     */
+    boolean isSpinning() {
+        return isSpinning;
+    }
+
+    public boolean isRigidRotation() {
+        return isRigidRotation;
+    }
+
+    /**
+     * Set whether to rotate the whole ring as one transform around the midpoint of the bottom edge. <br/>
+     * The children are then laid out only once per size change instead of on every rotation frame
+     * @param rigidRotation
+     */
+    public void setRigidRotation(boolean rigidRotation) {
+        isRigidRotation = rigidRotation;
+        updateRingMatrix();
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Map points from the frame of the children to the frame of this view, through the ring transform
+     * of the rigid rotation mode
+     * @param points
+     */
+    void mapRingPoints(float[] points) {
+        ringMatrix.mapPoints(points);
+    }
+
+    /**
+     * Set whether only the menu item in the center slot is drawn, its page then covers the whole menu
+     * and receives the touches directly from {@link SpinMenu}
+     * @param selectedItemOnly
+     */
+    void setSelectedItemOnly(boolean selectedItemOnly) {
+        if (isSelectedItemOnly != selectedItemOnly) {
+            isSelectedItemOnly = selectedItemOnly;
+            invalidate();
+        }
     }
 
     public void postEnable(boolean isEnable) {
@@ -369,7 +1110,93 @@ public class SpinMenuLayout extends ViewGroup implements Runnable, View.OnClickL
         onSpinSelectedListener = listener;
     }
 
+    public void setOnSpinLandingListener(OnSpinLandingListener listener) {
+        onSpinLandingListener = listener;
+    }
+
+    /**
+     * Set the listener of the rotation, called from the pre-draw pass at most once per frame
+     * @param listener
+     */
+    public void setOnSpinScrollListener(OnSpinScrollListener listener) {
+        boolean attached = getWindowToken() != null;
+        if (attached && onSpinScrollListener != null) {
+            getViewTreeObserver().removeOnPreDrawListener(scrollPreDrawListener);
+        }
+        onSpinScrollListener = listener;
+        isScrollDispatchPending = false;
+        lastScrolledAngle = Float.NaN;
+        if (attached && onSpinScrollListener != null) {
+            getViewTreeObserver().addOnPreDrawListener(scrollPreDrawListener);
+        }
+    }
+
     public void setOnMenuSelectedListener(com.hitomi.smlibrary.onMenuSelectedListener listener) {
         onMenuSelectedListener = listener;
     }
+
+    void setOnCenterPositionChangeListener(OnCenterPositionChangeListener listener) {
+        onCenterPositionChangeListener = listener;
+    }
+
+    void setItemBinder(ItemBinder binder) {
+        itemBinder = binder;
+    }
+
+    /**
+     * Set the renderer of the canvas ring mode: only the center slot keeps a child view, the other menu items
+     * are painted by the renderer and hit-tested by angle. Null goes back to one child view per bound menu item.
+     * Must be set before the menu items are bound
+     * @param renderer
+     */
+    void setRingRenderer(CanvasRingRenderer renderer) {
+        ringRenderer = renderer;
+        invalidate();
+    }
+
+    void setMetricsRecorder(FrameMetricsRecorder recorder) {
+        metricsRecorder = recorder;
+    }
+
+    /**
+     * Set the histogram recording the delay from each drag event to the frame drawing it, null to stop tracking
+     * @param histogram
+     */
+    void setInputLatencyHistogram(LatencyHistogram histogram) {
+        boolean attached = getWindowToken() != null;
+        if (attached && inputLatencyHistogram != null) {
+            getViewTreeObserver().removeOnPreDrawListener(latencyPreDrawListener);
+        }
+        inputLatencyHistogram = histogram;
+        pendingInputTime = -1;
+        if (attached && inputLatencyHistogram != null) {
+            getViewTreeObserver().addOnPreDrawListener(latencyPreDrawListener);
+        }
+    }
+
+    /**
+     * Bind the pages to the recycled child views of the ring
+     */
+    interface ItemBinder {
+
+        /**
+         * The child view starts showing the position
+         */
+        void bindItem(SMItemLayout item, int position);
+
+        /**
+         * The child view stopped showing the position, it rotated out of the bound arc
+         */
+        void recycleItem(SMItemLayout item, int position);
+
+    }
+
+    /**
+     * Callback interface when another menu item becomes the one closest to the center slot while rotating
+     */
+    interface OnCenterPositionChangeListener {
+
+        void onCenterPositionChanged(int position);
+
+    }
 }
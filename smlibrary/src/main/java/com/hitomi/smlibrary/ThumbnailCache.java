@@ -0,0 +1,57 @@
+package com.hitomi.smlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.util.LruCache;
+import android.view.View;
+
+/**
+ * Byte-bounded LRU cache of the page snapshots shown by the menu items in thumbnail mode <br/>
+ *
+ * The snapshots are keyed by page position
+ */
+class ThumbnailCache {
+
+    private final LruCache<Integer, Bitmap> cache;
+
+    /**
+     * @param maxBytes maximum total byte count of the cached snapshots
+     */
+    public ThumbnailCache(int maxBytes) {
+        cache = new LruCache<Integer, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Integer key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    public Bitmap get(int position) {
+        return cache.get(position);
+    }
+
+    /**
+     * Render the view into a snapshot of its current size and cache it
+     * @param position page position
+     * @param view view to render, it must have been laid out
+     * @return the snapshot, or null when the view has not been laid out yet
+     */
+    public Bitmap capture(int position, View view) {
+        int width = view.getWidth();
+        int height = view.getHeight();
+        if (width <= 0 || height <= 0) return null;
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(bitmap));
+        cache.put(position, bitmap);
+        return bitmap;
+    }
+
+    public void invalidate(int position) {
+        cache.remove(position);
+    }
+
+    public void invalidateAll() {
+        cache.evictAll();
+    }
+}
@@ -0,0 +1,70 @@
+package com.hitomi.smlibrary;
+
+import android.graphics.Paint;
+import android.view.View;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HardwareLayerHolderTest {
+
+    @Test
+    public void promote_putsViewsOnHardwareLayers() throws Exception {
+        HardwareLayerHolder holder = new HardwareLayerHolder();
+        LayerView pager = new LayerView(View.LAYER_TYPE_NONE);
+        LayerView item = new LayerView(View.LAYER_TYPE_SOFTWARE);
+
+        holder.promote(pager);
+        holder.promote(item);
+
+        assertEquals(View.LAYER_TYPE_HARDWARE, pager.getLayerType());
+        assertEquals(View.LAYER_TYPE_HARDWARE, item.getLayerType());
+        assertEquals(2, holder.size());
+    }
+
+    @Test
+    public void restore_resetsPreviousLayerTypes() throws Exception {
+        HardwareLayerHolder holder = new HardwareLayerHolder();
+        LayerView pager = new LayerView(View.LAYER_TYPE_NONE);
+        LayerView item = new LayerView(View.LAYER_TYPE_SOFTWARE);
+
+        holder.promote(pager);
+        holder.promote(item);
+        // Promoting twice must not overwrite the remembered layer type
+        holder.promote(pager);
+        holder.restore();
+
+        assertEquals(View.LAYER_TYPE_NONE, pager.getLayerType());
+        assertEquals(View.LAYER_TYPE_SOFTWARE, item.getLayerType());
+        assertEquals(0, holder.size());
+    }
+
+    @Test
+    public void promote_ignoresNull() throws Exception {
+        HardwareLayerHolder holder = new HardwareLayerHolder();
+        holder.promote(null);
+        holder.restore();
+        assertEquals(0, holder.size());
+    }
+
+    private static class LayerView extends View {
+
+        private int layerType;
+
+        LayerView(int layerType) {
+            super(null);
+            this.layerType = layerType;
+        }
+
+        @Override
+        public void setLayerType(int layerType, Paint paint) {
+            this.layerType = layerType;
+        }
+
+        @Override
+        public int getLayerType() {
+            return layerType;
+        }
+    }
+}
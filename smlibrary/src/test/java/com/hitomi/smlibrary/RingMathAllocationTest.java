@@ -0,0 +1,147 @@
+package com.hitomi.smlibrary;
+
+import com.hitomi.smcore.LatencyHistogram;
+import com.hitomi.smcore.SpinGeometry;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check that {@link SpinGeometry}, {@link AngularVelocityTracker}, {@link LatencyHistogram} and {@link PhaseMetrics}
+ * do not allocate, over a 2 second sequence of calls shaped like a drag and a fling <br/>
+ *
+ * This test does not run SpinMenuLayout: an allocation added to its dispatchTouchEvent, onLayout or doSpinFrame
+ * would not fail it
+ */
+public class RingMathAllocationTest {
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    private static final int ITEM_WIDTH = 389;
+
+    private static final int ITEM_HEIGHT = 690;
+
+    /**
+     * Touch samples every 8 ms, display frames every 16 ms
+     */
+    private static final long SAMPLE_INTERVAL = 8;
+
+    private static final long FRAME_INTERVAL = 16;
+
+    private final SpinGeometry geometry = new SpinGeometry();
+
+    private final AngularVelocityTracker velocityTracker = new AngularVelocityTracker();
+
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+    private final PhaseMetrics metrics = new PhaseMetrics();
+
+    private final int[] slotCenter = new int[2];
+
+    /**
+     * Sum of all the results, read at the end so that no work can be skipped
+     */
+    private long checksum;
+
+    @Before
+    public void setUp() throws Exception {
+        geometry.setItemCount(8);
+        geometry.setSize(WIDTH, HEIGHT, ITEM_HEIGHT);
+    }
+
+    @Test
+    public void geometryAndTrackers_doNotAllocate() throws Exception {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported()
+                && allocationBean.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+
+        // Warm up: load the classes and grow the reusable buffers
+        for (int i = 0; i < 3; i++) {
+            runRingMath();
+        }
+
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        runRingMath();
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals("Bytes allocated by the ring math", 0, allocated);
+        assertTrue(checksum != 0);
+    }
+
+    /**
+     * One second of dragging from left to right across the ring, then one second of frames towards the snapped angle.
+     * The angles of the fling frames are evenly spaced, only the calls matter, not the curve
+     */
+    private void runRingMath() {
+        long time = 0;
+        float ringAngle = 0, perAngle = 0;
+        float preX = 100, preY = HEIGHT / 2;
+        float preTouchAngle = geometry.computeAngle(preX, preY);
+        velocityTracker.clear();
+        velocityTracker.addSample(time, perAngle);
+        metrics.reset(PhaseMetrics.PHASE_DRAG, 25000000L);
+
+        // Drag
+        for (int sample = 1; time < 1000; sample++) {
+            time += SAMPLE_INTERVAL;
+            float curX = 100 + sample * 7;
+            float curY = HEIGHT / 2 - sample;
+            float curTouchAngle = geometry.computeAngle(curX, curY);
+            float perDiffAngle = geometry.computeRotation(preTouchAngle, curTouchAngle, curX - preX);
+            ringAngle += perDiffAngle;
+            perAngle += perDiffAngle;
+            velocityTracker.addSample(time, perAngle);
+            preX = curX;
+            preY = curY;
+            preTouchAngle = curTouchAngle;
+
+            if (time % FRAME_INTERVAL == 0) {
+                ringAngle %= 360.f;
+                frame(ringAngle);
+                latencyHistogram.record(SAMPLE_INTERVAL * 1000);
+            }
+        }
+
+        // Fling
+        float anglePerSecond = velocityTracker.getVelocity();
+        int startAngle = (int) ringAngle;
+        int finalAngle = startAngle + (int) (anglePerSecond * .4f);
+        finalAngle += geometry.computeDistanceToEndAngle(finalAngle % SpinGeometry.ANGLE_SPACE, perAngle);
+        finalAngle = geometry.clampFinalAngle(finalAngle);
+        metrics.reset(PhaseMetrics.PHASE_FLING, 25000000L);
+        for (long elapsed = 0; elapsed <= 1000; elapsed += FRAME_INTERVAL) {
+            frame((startAngle + (finalAngle - startAngle) * (elapsed / 1000.f)) % 360.f);
+        }
+        checksum += geometry.getSelectedPosition(finalAngle) + 1;
+        checksum += latencyHistogram.getValueAtPercentile(99) + metrics.getJankCount();
+    }
+
+    /**
+     * The ring math of one display frame: center position, scroll offset, bound range, culling and placement of the bound menu items
+     * @param ringAngle
+     */
+    private void frame(float ringAngle) {
+        checksum += geometry.computeCenterPosition(ringAngle);
+        checksum += geometry.computeScrollPosition(ringAngle) + (long) (geometry.computeScrollOffset(ringAngle) * 100);
+        int first = geometry.computeFirstBoundPosition(ringAngle);
+        int last = geometry.computeLastBoundPosition(ringAngle);
+        geometry.setPlacementAngle(ringAngle);
+        for (int p = first; p <= last; p++) {
+            int position = geometry.normalizePosition(p);
+            if (!geometry.isSlotVisible(position, ITEM_WIDTH, ITEM_HEIGHT)) continue;
+            geometry.placeSlot(position, slotCenter);
+            checksum += slotCenter[0] + slotCenter[1];
+        }
+        metrics.addFrame(FRAME_INTERVAL * 1000000L);
+    }
+}
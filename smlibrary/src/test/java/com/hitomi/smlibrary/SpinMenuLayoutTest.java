@@ -0,0 +1,56 @@
+package com.hitomi.smlibrary;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpinMenuLayoutTest {
+
+    private SpinMenuLayout spinMenuLayout;
+
+    private SMItemLayout selectedItem;
+
+    private SMItemLayout sideItem;
+
+    private SMItemLayout menuSelectedItem;
+
+    @Before
+    public void setUp() throws Exception {
+        spinMenuLayout = new SpinMenuLayout(null);
+        spinMenuLayout.setMenuItemCount(3, 0);
+        selectedItem = new SMItemLayout(null);
+        selectedItem.setPosition(spinMenuLayout.getSelectedPosition());
+        sideItem = new SMItemLayout(null);
+        sideItem.setPosition(spinMenuLayout.getSelectedPosition() + 1);
+        spinMenuLayout.setOnMenuSelectedListener(new onMenuSelectedListener() {
+            @Override
+            public void onMenuSelected(SMItemLayout smItemLayout) {
+                menuSelectedItem = smItemLayout;
+            }
+        });
+    }
+
+    @Test
+    public void centerTap_whileOpening_selectsTheMenuItem() throws Exception {
+        // The ring is disabled until the open animation ends, SpinMenu reverses the animation on this callback
+        spinMenuLayout.postEnable(false);
+        spinMenuLayout.onClick(selectedItem);
+        assertSame(selectedItem, menuSelectedItem);
+    }
+
+    @Test
+    public void centerTap_whenOpened_selectsTheMenuItem() throws Exception {
+        spinMenuLayout.postEnable(true);
+        spinMenuLayout.onClick(selectedItem);
+        assertSame(selectedItem, menuSelectedItem);
+    }
+
+    @Test
+    public void sideTap_whileOpening_doesNotSpin() throws Exception {
+        spinMenuLayout.postEnable(false);
+        spinMenuLayout.onClick(sideItem);
+        assertNull(menuSelectedItem);
+        assertFalse(spinMenuLayout.isSpinning());
+    }
+}